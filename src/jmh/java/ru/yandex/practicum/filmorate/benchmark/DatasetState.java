@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.cache.GenreCache;
+import ru.yandex.practicum.filmorate.cache.MpaCache;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedProperties;
+import ru.yandex.practicum.filmorate.dataset.BulkLoadProperties;
+import ru.yandex.practicum.filmorate.dataset.BulkLoader;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLog;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLogProperties;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.TrendingProperties;
+import ru.yandex.practicum.filmorate.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.mapper.MpaRowMapper;
+import ru.yandex.practicum.filmorate.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.LikeWriteBehindProperties;
+import ru.yandex.practicum.filmorate.repository.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.repository.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.util.UUID;
+
+@State(Scope.Benchmark)
+public class DatasetState {
+
+    private static final String MAIN_RESOURCES = "src/main/resources/";
+
+    @Param("1000")
+    public int users;
+
+    @Param("1000")
+    public int films;
+
+    @Param("20000")
+    public long likes;
+
+    @Param("10000")
+    public long friendships;
+
+    @Param("42")
+    public long seed;
+
+    public NamedParameterJdbcTemplate jdbc;
+    public MpaCache mpaCache;
+    public GenreCache genreCache;
+    public FilmRowMapper filmRowMapper;
+    public FilmRepository filmRepository;
+    public UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new FileSystemResource(MAIN_RESOURCES + "schema.sql"),
+                new FileSystemResource(MAIN_RESOURCES + "data.sql"))
+                .execute(dataSource);
+
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+
+        mpaCache = new MpaCache(new MpaRepository(jdbc, new MpaRowMapper()));
+        mpaCache.preload();
+        genreCache = new GenreCache(new GenreRepository(jdbc, new GenreRowMapper()));
+        genreCache.preload();
+
+        filmRowMapper = new FilmRowMapper(mpaCache);
+        FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+        EdgeEventLogProperties edgeLogProperties = new EdgeEventLogProperties();
+        edgeLogProperties.setEnabled(false);
+        EdgeEventLog edgeEventLog = new EdgeEventLog(edgeLogProperties);
+        ChangeFeed changeFeed = new ChangeFeed(new ChangeFeedProperties());
+        FilmTrendingIndex trendingIndex = new FilmTrendingIndex(new TrendingProperties());
+        filmRepository = new FilmRepository(jdbc, filmRowMapper, new GenreRepository(jdbc, new GenreRowMapper()),
+                genreCache, mpaCache, popularityIndex, new LikeMatrix(), new FilmSearchIndex(popularityIndex),
+                trendingIndex, new LikeWriteBuffer(jdbc, new DataSourceTransactionManager(dataSource),
+                        new LikeWriteBehindProperties(), trendingIndex), edgeEventLog, changeFeed);
+        userRepository = new UserRepository(jdbc, new UserRowMapper(), new FriendshipIndex(), edgeEventLog,
+                changeFeed);
+
+        BulkLoadProperties properties = new BulkLoadProperties();
+        properties.setUsers(users);
+        properties.setFilms(films);
+        properties.setLikes(likes);
+        properties.setFriendships(friendships);
+        properties.setSeed(seed);
+        new BulkLoader(jdbc, mpaCache, genreCache, filmRepository, userRepository).load(properties);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbc.getJdbcOperations().execute("shutdown");
+    }
+}
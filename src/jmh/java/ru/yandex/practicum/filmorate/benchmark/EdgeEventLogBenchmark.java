@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLog;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLogProperties;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class EdgeEventLogBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class LogState {
+
+        @Param({"false", "true"})
+        public boolean syncAppends;
+
+        public Path directory;
+        public EdgeEventLog edgeEventLog;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("edge-log");
+            EdgeEventLogProperties properties = new EdgeEventLogProperties();
+            properties.setDirectory(directory);
+            properties.setSyncAppends(syncAppends);
+            edgeEventLog = new EdgeEventLog(properties);
+            edgeEventLog.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException, InterruptedException {
+            edgeEventLog.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public long append(LogState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return state.edgeEventLog.append(EdgeEventType.LIKE_ADDED, random.nextLong(1_000_000),
+                random.nextLong(1_000_000));
+    }
+}
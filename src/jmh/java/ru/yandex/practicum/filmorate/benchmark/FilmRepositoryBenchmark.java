@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilmRepositoryBenchmark {
+
+    @Benchmark
+    public Collection<Film> getAll(DatasetState dataset) {
+        return dataset.filmRepository.getAll();
+    }
+
+    @Benchmark
+    public List<Film> getMostPopularFilms(DatasetState dataset) {
+        return dataset.filmRepository.getMostPopularFilms(10, null, null);
+    }
+}
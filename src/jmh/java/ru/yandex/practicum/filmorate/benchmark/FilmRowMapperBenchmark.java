@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class FilmRowMapperBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private SimpleResultSet resultSet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        resultSet = new SimpleResultSet();
+        resultSet.setAutoClose(false);
+        resultSet.addColumn("id", Types.BIGINT, 19, 0);
+        resultSet.addColumn("name", Types.VARCHAR, 150, 0);
+        resultSet.addColumn("description", Types.VARCHAR, 200, 0);
+        resultSet.addColumn("release_date", Types.DATE, 10, 0);
+        resultSet.addColumn("duration", Types.INTEGER, 10, 0);
+        resultSet.addColumn("mpa_id", Types.INTEGER, 10, 0);
+        for (int i = 1; i <= ROWS; i++) {
+            resultSet.addRow((long) i, "Film " + i, "Description of film " + i,
+                    Date.valueOf(LocalDate.of(2000, 1, 1).plusDays(i)), 90, 1 + i % 5);
+        }
+    }
+
+    @Benchmark
+    public void mapRow(DatasetState dataset, Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        int rowNum = 0;
+        while (resultSet.next()) {
+            blackhole.consume(dataset.filmRowMapper.mapRow(resultSet, rowNum++));
+        }
+    }
+}
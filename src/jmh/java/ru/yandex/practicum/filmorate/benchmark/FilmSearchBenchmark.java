@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dataset.ZipfSampler;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FilmSearchBenchmark {
+
+    private static final Set<FilmSearchIndex.Field> ALL_FIELDS = EnumSet.allOf(FilmSearchIndex.Field.class);
+
+    @State(Scope.Benchmark)
+    public static class SearchState {
+
+        @Param("1000000")
+        public int films;
+
+        @Param("50000")
+        public int vocabulary;
+
+        @Param("100000")
+        public int likedFilms;
+
+        @Param("42")
+        public long seed;
+
+        public FilmSearchIndex searchIndex;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(seed);
+            ZipfSampler wordSampler = new ZipfSampler(vocabulary, 1.0);
+
+            FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+            ZipfSampler filmSampler = new ZipfSampler(films, 1.0);
+            for (int i = 0; i < likedFilms; i++) {
+                popularityIndex.adjust((long) filmSampler.sample(random), 1);
+            }
+
+            searchIndex = new FilmSearchIndex(popularityIndex);
+            searchIndex.rebuild(documents -> {
+                for (long filmId = 1; filmId <= films; filmId++) {
+                    documents.accept(filmId, text(wordSampler, random, 3), text(wordSampler, random, 15));
+                }
+            });
+        }
+
+        private static String text(ZipfSampler wordSampler, Random random, int words) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < words; i++) {
+                text.append(word(wordSampler.sample(random))).append(' ');
+            }
+            return text.toString();
+        }
+    }
+
+    static String word(int rank) {
+        StringBuilder word = new StringBuilder("w");
+        for (int value = rank; value > 0; value /= 26) {
+            word.append((char) ('a' + value % 26));
+        }
+        return word.toString();
+    }
+
+    @Benchmark
+    public List<Long> rareTerm(SearchState state) {
+        return state.searchIndex.search(word(5000), ALL_FIELDS, 10);
+    }
+
+    @Benchmark
+    public List<Long> twoTerms(SearchState state) {
+        return state.searchIndex.search(word(10) + " " + word(200), ALL_FIELDS, 10);
+    }
+
+    @Benchmark
+    public List<Long> mostCommonTerm(SearchState state) {
+        return state.searchIndex.search(word(1), ALL_FIELDS, 10);
+    }
+}
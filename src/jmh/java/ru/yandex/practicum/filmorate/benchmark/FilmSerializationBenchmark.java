@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FilmSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Film film;
+    private List<Film> films;
+
+    @Setup(Level.Trial)
+    public void setUp(DatasetState dataset) {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        films = new ArrayList<>(dataset.filmRepository.getAll());
+        film = films.getFirst();
+    }
+
+    @Benchmark
+    public byte[] serializeFilm() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public byte[] serializeAllFilms() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(films);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dataset.BulkLoadProperties;
+import ru.yandex.practicum.filmorate.dataset.DatasetGenerator;
+import ru.yandex.practicum.filmorate.index.FriendshipIndex;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FriendshipIndexBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class GraphState {
+
+        @Param("1000000")
+        public int users;
+
+        @Param("5000000")
+        public long friendships;
+
+        @Param("42")
+        public long seed;
+
+        public FriendshipIndex friendshipIndex;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            BulkLoadProperties properties = new BulkLoadProperties();
+            properties.setUsers(users);
+            properties.setFriendships(friendships);
+            properties.setSeed(seed);
+
+            friendshipIndex = new FriendshipIndex();
+            new DatasetGenerator(properties, List.of(), List.of())
+                    .generateFriendships(friendshipIndex::add);
+        }
+    }
+
+    @Benchmark
+    public long[] getMutualFriendIds(GraphState graph) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = 1 + random.nextInt(graph.users);
+        long otherId = 1 + random.nextInt(graph.users);
+        return graph.friendshipIndex.getMutualFriendIds(id, otherId);
+    }
+
+    @Benchmark
+    public List<Long> getSuggestedFriendIds(GraphState graph) {
+        long id = 1 + ThreadLocalRandom.current().nextInt(graph.users);
+        return graph.friendshipIndex.getSuggestedFriendIds(id, 10);
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load generator: {@code concurrency} virtual threads send requests back to back for
+ * {@code seconds} and the run reports throughput and latency percentiles of the successful responses.
+ * Every {@code {rand:N}} in the URI is replaced with a random number from 1 to N for each request.
+ *
+ * <pre>
+ * java -cp target/test-classes ru.yandex.practicum.filmorate.benchmark.HttpLoadTest \
+ *   http://localhost:8080/films/popular 1000 30
+ * java -cp target/test-classes ru.yandex.practicum.filmorate.benchmark.HttpLoadTest \
+ *   "http://localhost:8080/films/{rand:50000}/like/{rand:100000}" 200 30 PUT
+ * </pre>
+ */
+public class HttpLoadTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Pattern RANDOM_PLACEHOLDER = Pattern.compile("\\{rand:(\\d+)}");
+
+    public static void main(String[] args) throws Exception {
+        String uri = args[0];
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        String method = args.length > 3 ? args[3] : "GET";
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        Supplier<HttpRequest> requests = () -> HttpRequest.newBuilder(URI.create(expand(uri)))
+                .timeout(Duration.ofSeconds(60))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        run(client, requests, concurrency, WARMUP);
+        Result result = run(client, requests, concurrency, duration);
+
+        long[] latencies = result.latencies();
+        Arrays.sort(latencies);
+        System.out.printf("%s %s concurrency=%d duration=%ds%n", method, uri, concurrency, duration.toSeconds());
+        System.out.printf("ok=%d errors=%d throughput=%.1f req/s%n", latencies.length, result.errors(),
+                latencies.length / (double) duration.toSeconds());
+        System.out.printf("p50=%.1f ms p99=%.1f ms max=%.1f ms%n", percentile(latencies, 0.5),
+                percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static Result run(HttpClient client, Supplier<HttpRequest> requests, int concurrency, Duration duration)
+            throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Result>> workers = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> work(client, requests, deadline)));
+            }
+        }
+
+        long[] latencies = new long[0];
+        long errors = 0;
+        for (Future<Result> worker : workers) {
+            Result result = worker.get();
+            int size = latencies.length;
+            latencies = Arrays.copyOf(latencies, size + result.latencies().length);
+            System.arraycopy(result.latencies(), 0, latencies, size, result.latencies().length);
+            errors += result.errors();
+        }
+        return new Result(latencies, errors);
+    }
+
+    private static Result work(HttpClient client, Supplier<HttpRequest> requests, long deadline) {
+        long[] latencies = new long[64];
+        int count = 0;
+        long errors = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = requests.get();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() / 100 != 2) {
+                    errors++;
+                    continue;
+                }
+            } catch (Exception e) {
+                errors++;
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new Result(Arrays.copyOf(latencies, count), errors);
+    }
+
+    private static String expand(String uri) {
+        Matcher matcher = RANDOM_PLACEHOLDER.matcher(uri);
+        StringBuilder expanded = new StringBuilder();
+        while (matcher.find()) {
+            long bound = Long.parseLong(matcher.group(1));
+            matcher.appendReplacement(expanded, Long.toString(ThreadLocalRandom.current().nextLong(bound) + 1));
+        }
+        return matcher.appendTail(expanded).toString();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private record Result(long[] latencies, long errors) {
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dataset.BulkLoadProperties;
+import ru.yandex.practicum.filmorate.dataset.DatasetGenerator;
+import ru.yandex.practicum.filmorate.dataset.ZipfSampler;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LikeMatrixBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class LikesState {
+
+        @Param("100000")
+        public int users;
+
+        @Param("500000")
+        public int films;
+
+        @Param("5000000")
+        public long likes;
+
+        @Param("100")
+        public int heavyUsers;
+
+        @Param("3000")
+        public int heavyUserLikes;
+
+        @Param("42")
+        public long seed;
+
+        public LikeMatrix likeMatrix;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            BulkLoadProperties properties = new BulkLoadProperties();
+            properties.setUsers(users);
+            properties.setFilms(films);
+            properties.setLikes(likes);
+            properties.setSeed(seed);
+
+            Map<Long, long[]> likedFilmIds = new HashMap<>();
+            Map<Long, Integer> sizes = new HashMap<>();
+            new DatasetGenerator(properties, List.of(), List.of()).generateLikes((filmId, userId) -> {
+                int size = sizes.merge(userId, 1, Integer::sum);
+                long[] filmIds = likedFilmIds.computeIfAbsent(userId, id -> new long[8]);
+                if (size > filmIds.length) {
+                    filmIds = Arrays.copyOf(filmIds, filmIds.length * 2);
+                    likedFilmIds.put(userId, filmIds);
+                }
+                filmIds[size - 1] = filmId;
+            });
+            likedFilmIds.replaceAll((userId, filmIds) -> Arrays.copyOf(filmIds, sizes.get(userId)));
+
+            ZipfSampler filmSampler = new ZipfSampler(films, properties.getZipfExponent());
+            Random random = new Random(seed);
+            for (long userId = 1; userId <= heavyUsers; userId++) {
+                long[] filmIds = new long[heavyUserLikes];
+                for (int i = 0; i < heavyUserLikes; i++) {
+                    filmIds[i] = filmSampler.sample(random);
+                }
+                likedFilmIds.put(userId, filmIds);
+            }
+
+            likeMatrix = new LikeMatrix();
+            likeMatrix.rebuild(likedFilmIds);
+        }
+    }
+
+    @Benchmark
+    public List<Long> recommendForHeavyUser(LikesState state) {
+        long userId = 1 + ThreadLocalRandom.current().nextInt(state.heavyUsers);
+        return state.likeMatrix.getRecommendedFilmIds(userId, 10);
+    }
+
+    @Benchmark
+    public List<Long> recommendForRandomUser(LikesState state) {
+        long userId = 1 + ThreadLocalRandom.current().nextInt(state.users);
+        return state.likeMatrix.getRecommendedFilmIds(userId, 10);
+    }
+}
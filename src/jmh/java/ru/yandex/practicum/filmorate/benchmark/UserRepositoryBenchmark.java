@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserRepositoryBenchmark {
+
+    @Benchmark
+    public List<User> getMutualFriends(DatasetState dataset) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = 1 + random.nextInt(dataset.users);
+        long otherId = 1 + random.nextInt(dataset.users);
+        return dataset.userRepository.getMutualFriends(id, otherId);
+    }
+}
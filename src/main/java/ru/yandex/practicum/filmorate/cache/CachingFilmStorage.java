@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Versioned;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.FilmStorage;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Primary
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnExpression("${filmorate.cache.entities.enabled:true} and '${filmorate.storage.engine:jdbc}' == 'jdbc'")
+public class CachingFilmStorage implements FilmStorage {
+
+    private final FilmRepository filmRepository;
+    private final FilmCache filmCache;
+
+    @Override
+    public boolean exists(Long id) {
+        return filmCache.contains(id) || filmRepository.exists(id);
+    }
+
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        return filmRepository.getExistingIds(ids);
+    }
+
+    @Override
+    public Optional<Film> getById(Long id) {
+        return getVersionedById(id).map(Versioned::getValue);
+    }
+
+    @Override
+    public Optional<Long> getVersion(Long id) {
+        return filmRepository.getVersion(id);
+    }
+
+    @Override
+    public Optional<Versioned<Film>> getVersionedById(Long id) {
+        return filmCache.get(id, filmRepository::getVersionedById);
+    }
+
+    @Override
+    public Collection<Film> getAll() {
+        return filmRepository.getAll();
+    }
+
+    @Override
+    public List<Film> getPage(Long afterId, Integer size) {
+        return filmRepository.getPage(afterId, size);
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        filmRepository.streamAll(consumer);
+    }
+
+    @Override
+    public Film save(Film film) {
+        return filmRepository.save(film);
+    }
+
+    /**
+     * Evicts the film rather than caching the result: concurrent updates may return in any order, and a put of the
+     * older one would outlive the newer row.
+     */
+    @Override
+    public Optional<Film> update(Film film) {
+        try {
+            return filmRepository.update(film);
+        } finally {
+            filmCache.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public Optional<Film> update(Film film, long expectedVersion) {
+        try {
+            return filmRepository.update(film, expectedVersion);
+        } finally {
+            filmCache.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public void addLike(Long id, Long userId) {
+        filmRepository.addLike(id, userId);
+    }
+
+    @Override
+    public boolean removeLike(Long id, Long userId) {
+        return filmRepository.removeLike(id, userId);
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        return filmRepository.addLikes(likes);
+    }
+
+    @Override
+    public List<Film> getMostPopularFilms(Integer limit, Integer genreId, Integer year) {
+        return filmRepository.getMostPopularFilms(limit, genreId, year);
+    }
+
+    @Override
+    public long getMostPopularFilmsVersion(Integer limit, Integer genreId, Integer year) {
+        return filmRepository.getMostPopularFilmsVersion(limit, genreId, year);
+    }
+
+    @Override
+    public FilmFacets getFacets() {
+        return filmRepository.getFacets();
+    }
+
+    @Override
+    public List<Film> getTrendingFilms(Duration window, Integer limit) {
+        return filmRepository.getTrendingFilms(window, limit);
+    }
+
+    @Override
+    public List<Film> search(String query, Set<FilmSearchIndex.Field> fields, Integer limit) {
+        return filmRepository.search(query, fields, limit);
+    }
+
+    @Override
+    public List<Film> getRecommendations(Long userId, Integer limit) {
+        return filmRepository.getRecommendations(userId, limit);
+    }
+
+    @Override
+    public void rebuildIndexes() {
+        filmRepository.rebuildIndexes();
+    }
+}
@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDegree;
+import ru.yandex.practicum.filmorate.model.Versioned;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.repository.UserStorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Primary
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnExpression("${filmorate.cache.entities.enabled:true} and '${filmorate.storage.engine:jdbc}' == 'jdbc'")
+public class CachingUserStorage implements UserStorage {
+
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+
+    @Override
+    public boolean exists(Long id) {
+        return userCache.contains(id) || userRepository.exists(id);
+    }
+
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        return userRepository.getExistingIds(ids);
+    }
+
+    @Override
+    public Optional<User> getById(Long id) {
+        return getVersionedById(id).map(Versioned::getValue);
+    }
+
+    @Override
+    public Optional<Long> getVersion(Long id) {
+        return userRepository.getVersion(id);
+    }
+
+    @Override
+    public Optional<Versioned<User>> getVersionedById(Long id) {
+        return userCache.get(id, userRepository::getVersionedById);
+    }
+
+    @Override
+    public Collection<User> getAll() {
+        return userRepository.getAll();
+    }
+
+    @Override
+    public List<User> getPage(Long afterId, Integer size) {
+        return userRepository.getPage(afterId, size);
+    }
+
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        userRepository.streamAll(consumer);
+    }
+
+    @Override
+    public User save(User user) {
+        User saved = userRepository.save(user);
+        // a new row starts at the column default version
+        userCache.put(saved.getId(), new Versioned<>(saved, 0L));
+        return saved;
+    }
+
+    @Override
+    public Optional<User> update(User user) {
+        try {
+            return userRepository.update(user);
+        } finally {
+            userCache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public Optional<User> update(User user, long expectedVersion) {
+        try {
+            return userRepository.update(user, expectedVersion);
+        } finally {
+            userCache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        userRepository.addFriend(userId, friendId);
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        return userRepository.removeFriend(userId, friendId);
+    }
+
+    @Override
+    public boolean[] addFriends(List<Friendship> friendships) {
+        return userRepository.addFriends(friendships);
+    }
+
+    @Override
+    public List<User> getFriendsByUserId(Long id) {
+        return userRepository.getFriendsByUserId(id);
+    }
+
+    @Override
+    public Versioned<List<User>> getVersionedFriendsByUserId(Long id) {
+        return userRepository.getVersionedFriendsByUserId(id);
+    }
+
+    @Override
+    public List<User> getMutualFriends(Long id, Long otherId) {
+        return userRepository.getMutualFriends(id, otherId);
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(Long id, Integer limit) {
+        return userRepository.getFriendSuggestions(id, limit);
+    }
+
+    @Override
+    public UserDegree getDegree(Long id) {
+        return userRepository.getDegree(id);
+    }
+
+    @Override
+    public void rebuildIndexes() {
+        userRepository.rebuildIndexes();
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+public class EntityCache<T> {
+
+    private final String name;
+    private final Cache<Long, T> cache;
+
+    public EntityCache(String name, EntityCacheProperties properties) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    public Optional<T> get(Long id, Function<Long, Optional<T>> loader) {
+        if (id == null) {
+            return loader.apply(null);
+        }
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    public boolean contains(Long id) {
+        return id != null && cache.asMap().containsKey(id);
+    }
+
+    public void put(Long id, T value) {
+        cache.put(id, value);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Cache<Long, T> getNativeCache() {
+        return cache;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.cache.entities")
+public class EntityCacheProperties {
+
+    private boolean enabled = true;
+    private long maximumSize = 100_000;
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Versioned;
+
+/**
+ * Films by id together with the version they were read at.
+ */
+@Component
+public class FilmCache extends EntityCache<Versioned<Film>> {
+
+    public FilmCache(EntityCacheProperties properties) {
+        super("films", properties);
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+
+@Component
+public class GenreCache extends ReferenceCache<Genre> {
+
+    public GenreCache(GenreRepository genreRepository) {
+        super("genres", genreRepository::getAll, Genre::getId);
+    }
+
+    @PostConstruct
+    public void preload() {
+        invalidate();
+    }
+}
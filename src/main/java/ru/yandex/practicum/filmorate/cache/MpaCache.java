@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.MpaRepository;
+
+@Component
+public class MpaCache extends ReferenceCache<Mpa> {
+
+    public MpaCache(MpaRepository mpaRepository) {
+        super("mpa", mpaRepository::getAll, Mpa::getId);
+    }
+
+    @PostConstruct
+    public void preload() {
+        invalidate();
+    }
+}
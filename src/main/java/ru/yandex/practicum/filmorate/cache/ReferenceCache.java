@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+@Slf4j
+public class ReferenceCache<T> {
+
+    private final String name;
+    private final Supplier<List<T>> loader;
+    private final ToIntFunction<T> idExtractor;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile Snapshot<T> snapshot;
+
+    public ReferenceCache(String name, Supplier<List<T>> loader, ToIntFunction<T> idExtractor) {
+        this.name = name;
+        this.loader = loader;
+        this.idExtractor = idExtractor;
+    }
+
+    public Optional<T> getById(Integer id) {
+        T value = snapshot().get(id);
+        if (value == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(value);
+    }
+
+    public boolean exists(Integer id) {
+        return getById(id).isPresent();
+    }
+
+    public List<T> getAll() {
+        return snapshot().values();
+    }
+
+    public void invalidate() {
+        List<T> values = List.copyOf(loader.get());
+        int maxId = values.stream().mapToInt(idExtractor).max().orElse(0);
+
+        Object[] byId = new Object[maxId + 1];
+        values.forEach(value -> byId[idExtractor.applyAsInt(value)] = value);
+
+        snapshot = new Snapshot<>(byId, values);
+        log.debug("Loaded {} {} into reference cache", values.size(), name);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private Snapshot<T> snapshot() {
+        Snapshot<T> current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    invalidate();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private record Snapshot<T>(Object[] byId, List<T> values) {
+
+        @SuppressWarnings("unchecked")
+        T get(Integer id) {
+            if (id == null || id < 0 || id >= byId.length) {
+                return null;
+            }
+            return (T) byId[id];
+        }
+    }
+}
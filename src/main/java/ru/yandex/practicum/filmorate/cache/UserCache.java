@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.Versioned;
+
+/**
+ * Users by id together with the version they were read at.
+ */
+@Component
+public class UserCache extends EntityCache<Versioned<User>> {
+
+    public UserCache(EntityCacheProperties properties) {
+        super("users", properties);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.changefeed;
+
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+
+import java.util.List;
+
+/**
+ * Changes following the requested sequence. When those are no longer retained, or the sequence has not been issued
+ * yet, {@code reset} is set and the subscriber has to reload the data and continue from {@code lastSequence}.
+ */
+public record ChangeBatch(boolean reset, long lastSequence, List<ChangeEvent> events) {
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.changefeed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered feed of the latest entity changes. Publishers never wait for subscribers: each subscriber reads from
+ * its own sequence in bounded batches, and one that falls behind the retained window gets a reset instead.
+ * Sequences start over with every run, so the ids handed to clients are prefixed with a random boot id.
+ */
+@Slf4j
+@Component
+public class ChangeFeed {
+
+    private final String bootId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final ChangeEvent[] retained;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private long lastSequence;
+
+    public ChangeFeed(ChangeFeedProperties properties) {
+        if (properties.getRetention() <= 0) {
+            throw new IllegalStateException("Change feed retention must be positive");
+        }
+        retained = new ChangeEvent[properties.getRetention()];
+    }
+
+    /**
+     * Publishes the change once the surrounding transaction commits, or right away when there is none.
+     */
+    public void publish(ChangeType type, long id, Long relatedId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(type, id, relatedId);
+                }
+            });
+        } else {
+            append(type, id, relatedId);
+        }
+    }
+
+    /**
+     * Returns the id of the event with the given sequence, {@code <bootId>-<sequence>}.
+     */
+    public String getEventId(long sequence) {
+        return bootId + "-" + sequence;
+    }
+
+    /**
+     * Returns the sequence of an event id issued by this run. Ids issued before a restart, and anything that is not
+     * an event id, give empty: their sequence says nothing about the changes of this run.
+     */
+    public OptionalLong getSequence(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !bootId.equals(eventId.substring(0, separator))) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(eventId.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} changes after {@code afterSequence}, waiting up to {@code timeout} for the first
+     * one. An empty batch means nothing has changed in the meantime.
+     */
+    public ChangeBatch read(long afterSequence, int limit, Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (afterSequence == lastSequence && nanos > 0) {
+                nanos = published.awaitNanos(nanos);
+            }
+
+            long oldestSequence = Math.max(1, lastSequence - retained.length + 1);
+            if (afterSequence > lastSequence || afterSequence < oldestSequence - 1) {
+                return new ChangeBatch(true, lastSequence, List.of());
+            }
+
+            long to = Math.min(lastSequence, afterSequence + limit);
+            List<ChangeEvent> events = new ArrayList<>((int) (to - afterSequence));
+            for (long sequence = afterSequence + 1; sequence <= to; sequence++) {
+                events.add(retained[index(sequence)]);
+            }
+            return new ChangeBatch(false, lastSequence, events);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(ChangeType type, long id, Long relatedId) {
+        lock.lock();
+        try {
+            long sequence = ++lastSequence;
+            retained[index(sequence)] = new ChangeEvent(sequence, type, id, relatedId, Instant.now());
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        log.trace("Published {} of {}", type, id);
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % retained.length);
+    }
+}
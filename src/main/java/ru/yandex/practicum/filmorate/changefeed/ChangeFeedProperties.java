@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.changefeed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.changes")
+public class ChangeFeedProperties {
+
+    // how many recent changes are kept for subscribers that resume or fall behind
+    private int retention = 65536;
+    private int batchSize = 256;
+    private int maxSubscribers = 16;
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+    private Duration timeout = Duration.ofMinutes(30);
+}
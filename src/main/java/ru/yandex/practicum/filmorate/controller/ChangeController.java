@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/changes")
+@RequiredArgsConstructor
+public class ChangeController {
+
+    private final ChangeStreamer changeStreamer;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getChanges(@RequestParam(required = false) String since,
+                                                 @RequestHeader(value = "Last-Event-ID", required = false)
+                                                 String lastEventId) {
+        // a reconnecting EventSource resumes from the last event it received
+        return changeStreamer.subscribe(lastEventId != null ? lastEventId : since)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.changefeed.ChangeBatch;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedProperties;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the change feed to SSE subscribers, one thread each. A subscriber that does not keep up blocks only its
+ * own thread on the socket and is told to reset once the changes it still needs are no longer retained.
+ */
+@Slf4j
+@Component
+public class ChangeStreamer {
+
+    static final String RESET_EVENT = "RESET";
+
+    private final ChangeFeed changeFeed;
+    private final ChangeFeedProperties properties;
+    private final Semaphore subscribers;
+    private final ExecutorService executor;
+
+    public ChangeStreamer(ChangeFeed changeFeed, ChangeFeedProperties properties) {
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+        this.subscribers = new Semaphore(properties.getMaxSubscribers());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.getMaxSubscribers(), runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Streams the changes after the event with id {@code since}, or the ones published from now on when it is null.
+     * An id issued before a restart is answered with a reset. Returns empty when all subscriber slots are taken.
+     */
+    public Optional<SseEmitter> subscribe(String since) {
+        if (!subscribers.tryAcquire()) {
+            return Optional.empty();
+        }
+
+        OptionalLong afterSequence = since == null
+                ? OptionalLong.of(changeFeed.getLastSequence())
+                : changeFeed.getSequence(since);
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onCompletion(() -> closed.set(true));
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+        try {
+            executor.execute(() -> send(emitter, afterSequence, closed));
+        } catch (RuntimeException e) {
+            subscribers.release();
+            throw e;
+        }
+        return Optional.of(emitter);
+    }
+
+    private void send(SseEmitter emitter, OptionalLong afterSequence, AtomicBoolean closed) {
+        long sequence = afterSequence.orElse(-1);
+        try {
+            if (afterSequence.isEmpty()) {
+                sequence = changeFeed.getLastSequence();
+                sendReset(emitter, sequence);
+            }
+            while (!closed.get()) {
+                ChangeBatch batch = changeFeed.read(sequence, properties.getBatchSize(),
+                        properties.getHeartbeatInterval());
+                if (batch.reset()) {
+                    sequence = batch.lastSequence();
+                    sendReset(emitter, sequence);
+                } else if (batch.events().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    for (ChangeEvent event : batch.events()) {
+                        emitter.send(SseEmitter.event()
+                                .id(changeFeed.getEventId(event.getSequence()))
+                                .name(event.getType().name())
+                                .data(event, MediaType.APPLICATION_JSON));
+                    }
+                    sequence = batch.events().getLast().getSequence();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Change subscriber disconnected at sequence {}", sequence);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } finally {
+            subscribers.release();
+        }
+    }
+
+    private void sendReset(SseEmitter emitter, long sequence) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(changeFeed.getEventId(sequence))
+                .name(RESET_EVENT)
+                .data(Map.of("sequence", sequence), MediaType.APPLICATION_JSON));
+    }
+}
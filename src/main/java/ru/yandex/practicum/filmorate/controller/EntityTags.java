@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String of(String resource, Object key, long version) {
+        return "\"" + resource + "-" + key + "-" + Long.toHexString(version) + "\"";
+    }
+
+    static Long parseVersion(String resource, Object key, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        String prefix = "\"" + resource + "-" + key + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() == prefix.length() + 1) {
+            throw new ValidationException("If-Match must be a " + resource + " " + key + " tag: " + ifMatch);
+        }
+        try {
+            return Long.parseUnsignedLong(tag.substring(prefix.length(), tag.length() - 1), 16);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("If-Match must be a " + resource + " " + key + " tag: " + ifMatch);
+        }
+    }
+}
@@ -2,8 +2,16 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Versioned;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.Collection;
@@ -15,10 +23,15 @@ import java.util.List;
 public class FilmController {
 
     private final FilmService filmService;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable Long id) {
-        return filmService.getFilmById(id);
+    public Film getFilmById(@PathVariable Long id, WebRequest request) {
+        Versioned<Film> film = filmService.getVersionedFilm(id);
+        if (request.checkNotModified(EntityTags.of("film", id, film.getVersion()))) {
+            return null;
+        }
+        return film.getValue();
     }
 
     @GetMapping
@@ -26,14 +39,38 @@ public class FilmController {
         return filmService.getFilms();
     }
 
+    @GetMapping(params = "size")
+    public List<Film> getFilms(@RequestParam(required = false) Long after,
+                               @RequestParam Integer size) {
+        return filmService.getFilms(after, size);
+    }
+
+    @GetMapping(params = {"after", "!size"})
+    public List<Film> getFilms(@RequestParam Long after) {
+        return filmService.getFilms(after, null);
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamFilms() {
+        return jsonArrayStreamer.stream(filmService::streamFilms);
+    }
+
     @PostMapping
     public Film createFilm(@Valid @RequestBody Film film) {
         return filmService.createFilm(film);
     }
 
     @PutMapping
-    public Film updateFilm(@Valid @RequestBody Film film) {
-        return filmService.updateFilm(film);
+    public ResponseEntity<Film> updateFilm(@Valid @RequestBody Film film,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           String ifMatch) {
+        Long expectedVersion = EntityTags.parseVersion("film", film.getId(), ifMatch);
+        if (expectedVersion == null) {
+            return ResponseEntity.ok(filmService.updateFilm(film));
+        }
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of("film", film.getId(), expectedVersion + 1))
+                .body(filmService.updateFilm(film, expectedVersion));
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -46,8 +83,38 @@ public class FilmController {
         filmService.removeLike(id, userId);
     }
 
+    @PostMapping("/likes:batch")
+    public List<BatchItemResult> addLikes(@RequestBody List<FilmLike> likes) {
+        return filmService.addLikes(likes);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam("q") String query,
+                                  @RequestParam(defaultValue = "name,description") List<String> by,
+                                  @RequestParam(value = "count", required = false) Integer limit) {
+        return filmService.searchFilms(query, by, limit);
+    }
+
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                       @RequestParam(value = "count", required = false) Integer limit) {
+        return filmService.getTrendingFilms(window, limit);
+    }
+
     @GetMapping("/popular")
-    public List<Film> getMostPopularFilms(@RequestParam("count") Integer limit) {
-        return filmService.getMostPopularFilms(limit);
+    public List<Film> getMostPopularFilms(@RequestParam("count") Integer limit,
+                                          @RequestParam(required = false) Integer genreId,
+                                          @RequestParam(required = false) Integer year,
+                                          WebRequest request) {
+        if (request.checkNotModified(EntityTags.of("popular", limit,
+                filmService.getMostPopularFilmsVersion(limit, genreId, year)))) {
+            return null;
+        }
+        return filmService.getMostPopularFilms(limit, genreId, year);
+    }
+
+    @GetMapping("/facets")
+    public FilmFacets getFacets() {
+        return filmService.getFacets();
     }
 }
@@ -2,8 +2,18 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDegree;
+import ru.yandex.practicum.filmorate.model.Versioned;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
@@ -15,10 +25,16 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable Long id) {
-        return userService.getUserById(id);
+    public User getUserById(@PathVariable Long id, WebRequest request) {
+        Versioned<User> user = userService.getVersionedUser(id);
+        if (request.checkNotModified(EntityTags.of("user", id, user.getVersion()))) {
+            return null;
+        }
+        return user.getValue();
     }
 
     @GetMapping
@@ -26,14 +42,38 @@ public class UserController {
         return userService.getUsers();
     }
 
+    @GetMapping(params = "size")
+    public List<User> getUsers(@RequestParam(required = false) Long after,
+                               @RequestParam Integer size) {
+        return userService.getUsers(after, size);
+    }
+
+    @GetMapping(params = {"after", "!size"})
+    public List<User> getUsers(@RequestParam Long after) {
+        return userService.getUsers(after, null);
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        return jsonArrayStreamer.stream(userService::streamUsers);
+    }
+
     @PostMapping
     public User createUser(@Valid @RequestBody User user) {
         return userService.createUser(user);
     }
 
     @PutMapping
-    public User updateUser(@Valid @RequestBody User user) {
-        return userService.updateUser(user);
+    public ResponseEntity<User> updateUser(@Valid @RequestBody User user,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           String ifMatch) {
+        Long expectedVersion = EntityTags.parseVersion("user", user.getId(), ifMatch);
+        if (expectedVersion == null) {
+            return ResponseEntity.ok(userService.updateUser(user));
+        }
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of("user", user.getId(), expectedVersion + 1))
+                .body(userService.updateUser(user, expectedVersion));
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -48,13 +88,39 @@ public class UserController {
         userService.removeFriend(userId, friendId);
     }
 
+    @PostMapping("/friends:batch")
+    public List<BatchItemResult> addFriends(@RequestBody List<Friendship> friendships) {
+        return userService.addFriends(friendships);
+    }
+
     @GetMapping("/{id}/friends")
-    public List<User> getFriendsByUserId(@PathVariable Long id) {
-        return userService.getFriendsByUserId(id);
+    public List<User> getFriendsByUserId(@PathVariable Long id, WebRequest request) {
+        Versioned<List<User>> friends = userService.getVersionedFriendsByUserId(id);
+        if (request.checkNotModified(EntityTags.of("friends", id, friends.getVersion()))) {
+            return null;
+        }
+        return friends.getValue();
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getMutualFriends(@PathVariable Long id, @PathVariable Long otherId) {
         return userService.getMutualFriends(id, otherId);
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Long id,
+                                           @RequestParam(value = "count", required = false) Integer limit) {
+        return userService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/degree")
+    public UserDegree getDegree(@PathVariable Long id) {
+        return userService.getDegree(id);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable Long id,
+                                         @RequestParam(value = "count", required = false) Integer limit) {
+        return filmService.getRecommendations(id, limit);
+    }
 }
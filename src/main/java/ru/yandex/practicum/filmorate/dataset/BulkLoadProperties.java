@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.bulk-load")
+public class BulkLoadProperties {
+
+    private int users = 10_000;
+    private int films = 10_000;
+    private long likes = 100_000;
+    private long friendships = 100_000;
+    private long seed = 42;
+    private double zipfExponent = 1.0;
+    private int batchSize = 5_000;
+}
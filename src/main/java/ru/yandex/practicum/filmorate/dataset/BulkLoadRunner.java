@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+@Component
+@Profile("bulk-load")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.engine", havingValue = "jdbc", matchIfMissing = true)
+public class BulkLoadRunner implements ApplicationRunner {
+
+    private final BulkLoader bulkLoader;
+    private final BulkLoadProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        bulkLoader.load(properties);
+    }
+}
@@ -0,0 +1,195 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.cache.GenreCache;
+import ru.yandex.practicum.filmorate.cache.MpaCache;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.UserStorage;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.engine", havingValue = "jdbc", matchIfMissing = true)
+public class BulkLoader {
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final MpaCache mpaCache;
+    private final GenreCache genreCache;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    /**
+     * Loads the dataset in autocommitted batches. Must not be called within a transaction: restarting the id
+     * sequences is DDL, which commits it.
+     */
+    public void load(BulkLoadProperties properties) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Bulk load must not run within a transaction");
+        }
+
+        DatasetGenerator generator = new DatasetGenerator(properties, mpaCache.getAll(), genreCache.getAll());
+        long userOffset = getMaxId("users");
+        long filmOffset = getMaxId("films");
+        long startTime = System.currentTimeMillis();
+
+        loadUsers(generator, properties, userOffset);
+        loadFilms(generator, properties, filmOffset);
+
+        EdgeBatch likes = new EdgeBatch("merge into films_likes(film_id, user_id) key(film_id, user_id) values(?, ?)",
+                properties.getBatchSize());
+        generator.generateLikes((filmId, userId) -> likes.add(filmOffset + filmId, userOffset + userId));
+        likes.flush();
+        log.info("Loaded {} likes", likes.getCount());
+
+        EdgeBatch friendships = new EdgeBatch("merge into users_friends key(user_id, friend_id) values(?, ?)",
+                properties.getBatchSize());
+        generator.generateFriendships((userId, friendId) ->
+                friendships.add(userOffset + userId, userOffset + friendId));
+        friendships.flush();
+        log.info("Loaded {} friendships", friendships.getCount());
+
+        restartIdentity("users", userOffset + properties.getUsers() + 1);
+        restartIdentity("films", filmOffset + properties.getFilms() + 1);
+        filmStorage.rebuildIndexes();
+        userStorage.rebuildIndexes();
+        log.info("Bulk load finished in {} ms", System.currentTimeMillis() - startTime);
+    }
+
+    private void loadUsers(DatasetGenerator generator, BulkLoadProperties properties, long offset) {
+        List<MapSqlParameterSource> batch = new ArrayList<>(properties.getBatchSize());
+        for (long id = 1; id <= properties.getUsers(); id++) {
+            User user = generator.user(id);
+
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            params.addValue("id", offset + user.getId());
+            params.addValue("email", user.getEmail());
+            params.addValue("login", user.getLogin());
+            params.addValue("name", user.getName());
+            params.addValue("birthday", user.getBirthday());
+            batch.add(params);
+
+            if (batch.size() == properties.getBatchSize()) {
+                insertUsers(batch);
+            }
+        }
+        insertUsers(batch);
+        log.info("Loaded {} users", properties.getUsers());
+    }
+
+    private void insertUsers(List<MapSqlParameterSource> batch) {
+        jdbc.batchUpdate("insert into users(id, email, login, name, birthday) " +
+                "values(:id, :email, :login, :name, :birthday)", batch.toArray(MapSqlParameterSource[]::new));
+        batch.clear();
+    }
+
+    private void loadFilms(DatasetGenerator generator, BulkLoadProperties properties, long offset) {
+        List<MapSqlParameterSource> batch = new ArrayList<>(properties.getBatchSize());
+        EdgeBatch filmGenres = new EdgeBatch("insert into films_genres(film_id, genre_id) values(?, ?)",
+                properties.getBatchSize() * DatasetGenerator.MAX_GENRES_PER_FILM + 1);
+        for (long id = 1; id <= properties.getFilms(); id++) {
+            Film film = generator.film(id);
+            long filmId = offset + film.getId();
+
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            params.addValue("id", filmId);
+            params.addValue("name", film.getName());
+            params.addValue("description", film.getDescription());
+            params.addValue("release_date", film.getReleaseDate());
+            params.addValue("duration", film.getDuration());
+            params.addValue("mpa_id", film.getMpa().getId());
+            batch.add(params);
+
+            for (Genre genre : film.getGenres()) {
+                filmGenres.add(filmId, genre.getId());
+            }
+
+            if (batch.size() == properties.getBatchSize()) {
+                insertFilms(batch);
+                filmGenres.flush();
+            }
+        }
+        insertFilms(batch);
+        filmGenres.flush();
+        log.info("Loaded {} films with {} genres", properties.getFilms(), filmGenres.getCount());
+    }
+
+    private void insertFilms(List<MapSqlParameterSource> batch) {
+        jdbc.batchUpdate("insert into films(id, name, description, release_date, duration, mpa_id) " +
+                        "values(:id, :name, :description, :release_date, :duration, :mpa_id)",
+                batch.toArray(MapSqlParameterSource[]::new));
+        batch.clear();
+    }
+
+    private long getMaxId(String table) {
+        Long maxId = jdbc.getJdbcOperations().queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    private void restartIdentity(String table, long nextId) {
+        jdbc.getJdbcOperations().execute("alter table " + table + " alter column id restart with " + nextId);
+    }
+
+    private class EdgeBatch {
+
+        private final String sql;
+        private final long[] from;
+        private final long[] to;
+        private int size;
+        private long count;
+
+        EdgeBatch(String sql, int batchSize) {
+            this.sql = sql;
+            this.from = new long[batchSize];
+            this.to = new long[batchSize];
+        }
+
+        void add(long fromId, long toId) {
+            from[size] = fromId;
+            to[size] = toId;
+            size++;
+            if (size == from.length) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (size == 0) {
+                return;
+            }
+            int batchSize = size;
+            jdbc.getJdbcOperations().batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, from[i]);
+                    ps.setLong(2, to[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batchSize;
+                }
+            });
+            count += size;
+            size = 0;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class DatasetGenerator {
+
+    public static final int MAX_GENRES_PER_FILM = 3;
+
+    private static final LocalDate EARLIEST_BIRTHDAY = LocalDate.of(1950, 1, 1);
+    private static final LocalDate EARLIEST_RELEASE_DATE = LocalDate.of(1930, 1, 1);
+    private static final int DATE_RANGE_DAYS = 25_000;
+
+    private final BulkLoadProperties properties;
+    private final List<Mpa> mpaList;
+    private final List<Genre> genreList;
+
+    public DatasetGenerator(BulkLoadProperties properties, List<Mpa> mpaList, List<Genre> genreList) {
+        this.properties = properties;
+        this.mpaList = mpaList;
+        this.genreList = genreList;
+    }
+
+    public User user(long id) {
+        Random random = new Random(properties.getSeed() ^ id);
+        return User.builder()
+                .id(id)
+                .email("user" + id + "@filmorate.ru")
+                .login("user" + id)
+                .name("User " + id)
+                .birthday(EARLIEST_BIRTHDAY.plusDays(random.nextInt(DATE_RANGE_DAYS)))
+                .build();
+    }
+
+    public Film film(long id) {
+        Random random = new Random(properties.getSeed() ^ ~id);
+
+        Set<Genre> genres = new LinkedHashSet<>();
+        int genreCount = random.nextInt(MAX_GENRES_PER_FILM + 1);
+        for (int i = 0; i < genreCount; i++) {
+            genres.add(genreList.get(random.nextInt(genreList.size())));
+        }
+
+        return Film.builder()
+                .id(id)
+                .name("Film " + id)
+                .description("Synthetic film " + id)
+                .releaseDate(EARLIEST_RELEASE_DATE.plusDays(random.nextInt(DATE_RANGE_DAYS)))
+                .duration(60 + random.nextInt(120))
+                .mpa(mpaList.get(random.nextInt(mpaList.size())))
+                .genres(genres)
+                .build();
+    }
+
+    public void generateLikes(EdgeConsumer consumer) {
+        Random random = new Random(properties.getSeed());
+        ZipfSampler filmSampler = new ZipfSampler(properties.getFilms(), properties.getZipfExponent());
+
+        for (long i = 0; i < properties.getLikes(); i++) {
+            long filmId = filmSampler.sample(random);
+            long userId = 1 + random.nextInt(properties.getUsers());
+            consumer.accept(filmId, userId);
+        }
+    }
+
+    public void generateFriendships(EdgeConsumer consumer) {
+        Random random = new Random(~properties.getSeed());
+        int users = properties.getUsers();
+        ZipfSampler userSampler = new ZipfSampler(users, properties.getZipfExponent());
+
+        for (long i = 0; i < properties.getFriendships(); i++) {
+            long userId = 1 + random.nextInt(users);
+            long friendId = 1 + (userSampler.sample(random) - 1 + users / 2) % users;
+            if (userId != friendId) {
+                consumer.accept(userId, friendId);
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+@FunctionalInterface
+public interface EdgeConsumer {
+
+    void accept(long from, long to);
+}
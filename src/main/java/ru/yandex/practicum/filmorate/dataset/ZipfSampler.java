@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class ZipfSampler {
+
+    private final double[] cumulative;
+
+    public ZipfSampler(int size, double exponent) {
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    public int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1) + 1;
+    }
+}
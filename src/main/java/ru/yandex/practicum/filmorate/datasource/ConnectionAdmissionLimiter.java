@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConnectionAdmissionLimiter implements BeanPostProcessor {
+
+    private static final int DEFAULT_MAX_CONCURRENT = 10;
+
+    private final ConnectionAdmissionProperties properties;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!properties.isEnabled() || !(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+
+        int maxConcurrent = properties.getMaxConcurrent();
+        if (maxConcurrent <= 0) {
+            maxConcurrent = bean instanceof HikariDataSource hikari
+                    ? hikari.getMaximumPoolSize()
+                    : DEFAULT_MAX_CONCURRENT;
+        }
+        log.info("Connection admission limited to {} concurrent connections for {}", maxConcurrent, beanName);
+        return new AdmissionControlledDataSource(dataSource, new Semaphore(maxConcurrent, true),
+                properties.getTimeout());
+    }
+
+    private static class AdmissionControlledDataSource extends DelegatingDataSource {
+
+        private final Semaphore permits;
+        private final Duration timeout;
+
+        AdmissionControlledDataSource(DataSource dataSource, Semaphore permits, Duration timeout) {
+            super(dataSource);
+            this.permits = permits;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return releaseOnClose(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return releaseOnClose(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            try {
+                if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException(
+                            "No connection admitted within " + timeout.toMillis() + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+            }
+        }
+
+        private Connection releaseOnClose(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                break;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        } finally {
+                            if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                    });
+        }
+    }
+}
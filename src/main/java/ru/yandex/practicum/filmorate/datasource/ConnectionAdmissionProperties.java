@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.datasource.admission")
+public class ConnectionAdmissionProperties {
+
+    private boolean enabled = true;
+    private int maxConcurrent;
+    private Duration timeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.eventlog;
+
+@FunctionalInterface
+public interface EdgeEventConsumer {
+
+    void accept(long offset, EdgeEventType type, long timestamp, long sourceId, long targetId);
+}
@@ -0,0 +1,356 @@
+package ru.yandex.practicum.filmorate.eventlog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of like and friendship changes. Records have a fixed size, so an offset maps straight to
+ * a segment file and a position in it. A record becomes visible once its header is published, and flushes
+ * force the contiguous published prefix to disk, so concurrent appenders share one fsync.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EdgeEventLog {
+
+    static final int RECORD_SIZE = 32;
+    private static final int CHECKSUM = 4;
+    private static final int TIMESTAMP = 8;
+    private static final int SOURCE = 16;
+    private static final int TARGET = 24;
+    private static final String SEGMENT_PREFIX = "edges-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final VarHandle HEADER =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final EdgeEventLogProperties properties;
+
+    private final Map<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+    private final AtomicLong nextOffset = new AtomicLong();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition durableAdvanced = flushLock.newCondition();
+    private volatile long durableOffset;
+    private volatile boolean open;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (properties.getSegmentRecords() <= 0 || properties.getSegmentRecords() > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalStateException("Edge log segment size must be between 1 and "
+                    + Integer.MAX_VALUE / RECORD_SIZE + " records");
+        }
+
+        Files.createDirectories(properties.getDirectory());
+        long end = recover();
+        nextOffset.set(end);
+        durableOffset = end;
+        open = true;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "edge-log-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Edge event log opened at offset {} in {}", end, properties.getDirectory());
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!open) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(properties.getFlushInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+        open = false;
+        flush();
+        segments.clear();
+        log.info("Edge event log closed at offset {}", durableOffset);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Appends the event once the surrounding transaction commits, or right away when there is none,
+     * so that rolled back changes never reach the log. Delivery is at most once: the change is already committed
+     * when the append runs, so an append that fails, or a crash in between, loses the event instead of failing
+     * the request. The tables stay the source of truth, and consumers that must not miss a change rebuild from them.
+     */
+    public void record(EdgeEventType type, long sourceId, long targetId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appendQuietly(type, sourceId, targetId);
+                }
+            });
+        } else {
+            appendQuietly(type, sourceId, targetId);
+        }
+    }
+
+    public long append(EdgeEventType type, long sourceId, long targetId) {
+        if (!open) {
+            throw new IllegalStateException("Edge event log is not open");
+        }
+
+        // the segment is mapped before the offset is taken, so an append that fails to map it leaves no offset
+        // behind that is never published and would stop the durable prefix for good
+        long offset;
+        MappedByteBuffer segment;
+        do {
+            offset = nextOffset.get();
+            segment = segment(offset / properties.getSegmentRecords());
+        } while (!nextOffset.compareAndSet(offset, offset + 1));
+        int position = position(offset);
+        long timestamp = System.currentTimeMillis();
+        segment.putInt(position + CHECKSUM, checksum(offset, type.code(), timestamp, sourceId, targetId));
+        segment.putLong(position + TIMESTAMP, timestamp);
+        segment.putLong(position + SOURCE, sourceId);
+        segment.putLong(position + TARGET, targetId);
+        HEADER.setRelease(segment, position, type.code());
+
+        if (properties.isSyncAppends()) {
+            awaitDurable(offset + 1);
+        }
+        return offset;
+    }
+
+    /**
+     * Forces every published record to disk and returns the offset up to which the log is durable.
+     */
+    public long flush() {
+        flushLock.lock();
+        try {
+            long from = durableOffset;
+            long to = publishedEnd(from, nextOffset.get());
+            int segmentRecords = properties.getSegmentRecords();
+            for (long start = from; start < to; ) {
+                long segmentIndex = start / segmentRecords;
+                long end = Math.min(to, (segmentIndex + 1) * segmentRecords);
+                segment(segmentIndex).force(position(start), (int) (end - start) * RECORD_SIZE);
+                start = end;
+            }
+            if (to > from) {
+                durableOffset = to;
+                durableAdvanced.signalAll();
+            }
+            // segments behind the durable offset are complete, replay maps them again when asked to
+            long currentSegment = to / segmentRecords;
+            segments.keySet().removeIf(segmentIndex -> segmentIndex < currentSegment);
+            return to;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Passes the durable events starting at {@code fromOffset} to the consumer and returns the offset
+     * to continue from, so a consumer tails the log by calling it again with the returned value. Reading never
+     * forces the log: events show up once the writers' periodic flush, or a synchronous append, has made them
+     * durable.
+     */
+    public long replay(long fromOffset, EdgeEventConsumer consumer) {
+        if (fromOffset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        long end = durableOffset;
+        long offset = fromOffset;
+        while (offset < end) {
+            MappedByteBuffer segment = segment(offset / properties.getSegmentRecords());
+            int position = position(offset);
+            EdgeEventType type = EdgeEventType.of((int) HEADER.getAcquire(segment, position));
+            consumer.accept(offset, type, segment.getLong(position + TIMESTAMP),
+                    segment.getLong(position + SOURCE), segment.getLong(position + TARGET));
+            offset++;
+        }
+        return offset;
+    }
+
+    public long getEndOffset() {
+        return durableOffset;
+    }
+
+    private void awaitDurable(long end) {
+        long deadline = System.nanoTime() + properties.getSyncTimeout().toNanos();
+        try {
+            if (!flushLock.tryLock(properties.getSyncTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Timed out waiting to flush the edge log up to offset " + end);
+            }
+            try {
+                flush();
+                while (durableOffset < end) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new IllegalStateException("Edge log offset " + (end - 1) + " did not become durable in "
+                                + properties.getSyncTimeout());
+                    }
+                    // an earlier record is still being written; its appender flushes and signals once it is
+                    // published, and the wait is bounded by the flush interval in case nobody does
+                    durableAdvanced.awaitNanos(Math.min(remaining, properties.getFlushInterval().toNanos()));
+                    flush();
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for edge log offset " + (end - 1), e);
+        }
+    }
+
+    private void appendQuietly(EdgeEventType type, long sourceId, long targetId) {
+        try {
+            append(type, sourceId, targetId);
+        } catch (RuntimeException e) {
+            log.error("Failed to log {} {}->{}, the event is lost", type, sourceId, targetId, e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush the edge event log", e);
+        }
+    }
+
+    private long publishedEnd(long from, long limit) {
+        long offset = from;
+        while (offset < limit) {
+            MappedByteBuffer segment = segment(offset / properties.getSegmentRecords());
+            if ((int) HEADER.getAcquire(segment, position(offset)) == 0) {
+                break;
+            }
+            offset++;
+        }
+        return offset;
+    }
+
+    private long recover() throws IOException {
+        List<Long> segmentIndexes;
+        try (Stream<Path> files = Files.list(properties.getDirectory())) {
+            segmentIndexes = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        if (segmentIndexes.isEmpty()) {
+            return 0;
+        }
+
+        long lastIndex = segmentIndexes.getLast();
+        if (segmentIndexes.size() != lastIndex + 1) {
+            throw new IllegalStateException("Edge log segments in " + properties.getDirectory()
+                    + " are not contiguous");
+        }
+        long segmentSize = (long) properties.getSegmentRecords() * RECORD_SIZE;
+        for (long segmentIndex : segmentIndexes) {
+            if (Files.size(segmentPath(segmentIndex)) != segmentSize) {
+                throw new IllegalStateException("Edge log segment " + segmentPath(segmentIndex)
+                        + " does not hold " + properties.getSegmentRecords() + " records");
+            }
+        }
+
+        // records after the first unpublished or damaged one were never acknowledged as durable; appenders may
+        // have been writing on both sides of a segment boundary, so the previous segment is checked as well
+        int segmentRecords = properties.getSegmentRecords();
+        long limit = (lastIndex + 1) * segmentRecords;
+        long end = Math.max(0, lastIndex - 1) * segmentRecords;
+        while (end < limit && isValid(end)) {
+            end++;
+        }
+        int dropped = 0;
+        for (long offset = end; offset < limit; offset++) {
+            MappedByteBuffer segment = segment(offset / segmentRecords);
+            if (segment.getInt(position(offset)) != 0) {
+                segment.putInt(position(offset), 0);
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            segments.values().forEach(MappedByteBuffer::force);
+            log.warn("Dropped {} incomplete records at the end of the edge log", dropped);
+        }
+        return end;
+    }
+
+    private boolean isValid(long offset) {
+        MappedByteBuffer segment = segment(offset / properties.getSegmentRecords());
+        int position = position(offset);
+        int code = segment.getInt(position);
+        return EdgeEventType.of(code) != null && segment.getInt(position + CHECKSUM) == checksum(offset, code,
+                segment.getLong(position + TIMESTAMP), segment.getLong(position + SOURCE),
+                segment.getLong(position + TARGET));
+    }
+
+    private MappedByteBuffer segment(long segmentIndex) {
+        return segments.computeIfAbsent(segmentIndex, this::mapSegment);
+    }
+
+    private MappedByteBuffer mapSegment(long segmentIndex) {
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentIndex), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) properties.getSegmentRecords() * RECORD_SIZE);
+            segment.order(ByteOrder.nativeOrder());
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map edge log segment " + segmentIndex, e);
+        }
+    }
+
+    private Path segmentPath(long segmentIndex) {
+        return properties.getDirectory().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segmentIndex,
+                SEGMENT_SUFFIX));
+    }
+
+    private int position(long offset) {
+        return (int) (offset % properties.getSegmentRecords()) * RECORD_SIZE;
+    }
+
+    static int checksum(long offset, int type, long timestamp, long sourceId, long targetId) {
+        long hash = (offset * 0x9E3779B97F4A7C15L + type) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ timestamp) * 0x94D049BB133111EBL;
+        hash = (hash ^ sourceId) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ targetId) * 0x94D049BB133111EBL;
+        return (int) (hash ^ hash >>> 32);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.eventlog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.edge-log")
+public class EdgeEventLogProperties {
+
+    private boolean enabled = true;
+    private Path directory = Path.of("db", "edges");
+    private int segmentRecords = 1 << 20;
+    private Duration flushInterval = Duration.ofMillis(50);
+    // when set, an append returns only after its record has been forced to disk together with the others pending
+    private boolean syncAppends;
+    // how long a synchronous append waits for its record to become durable before it fails
+    private Duration syncTimeout = Duration.ofSeconds(5);
+}
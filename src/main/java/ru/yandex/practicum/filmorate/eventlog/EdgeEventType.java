@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.eventlog;
+
+/**
+ * Likes are logged as user to film edges and friendships as user to friend edges.
+ */
+public enum EdgeEventType {
+    LIKE_ADDED,
+    LIKE_REMOVED,
+    FRIEND_ADDED,
+    FRIEND_REMOVED;
+
+    private static final EdgeEventType[] VALUES = values();
+
+    int code() {
+        return ordinal() + 1;
+    }
+
+    static EdgeEventType of(int code) {
+        return code >= 1 && code <= VALUES.length ? VALUES[code - 1] : null;
+    }
+}
@@ -1,6 +1,10 @@
 package ru.yandex.practicum.filmorate.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -25,6 +29,22 @@ public class ErrorHandler {
         return new ErrorResponse("Validation error", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailureException(final OptimisticLockingFailureException e) {
+        return new ErrorResponse("Conflict", e.getMessage());
+    }
+
+    @ExceptionHandler({
+            CannotGetJdbcConnectionException.class,
+            CannotCreateTransactionException.class,
+            QueryTimeoutException.class
+    })
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleUnavailableException(final Exception e) {
+        return new ErrorResponse("Service unavailable", e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleException(final Exception e) {
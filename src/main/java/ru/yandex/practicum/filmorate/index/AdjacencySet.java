@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+
+/**
+ * The ids next to one user or film in {@link LikeMatrix}. Up to {@link #COMPACT_LIMIT} ids are kept as an immutable
+ * sorted array that every change replaces and readers use without locking. Larger sets switch to an open addressing
+ * table that grows in place, so a like on a popular film no longer copies all of its likers, and readers copy the
+ * table under the set monitor. A set only returns to the array once it shrinks to half the limit, so a size near the
+ * limit does not convert back and forth.
+ */
+final class AdjacencySet {
+
+    // kept above LikeMatrix.MAX_LIKERS_PER_FILM so the likers read for recommendations are always arrays
+    static final int COMPACT_LIMIT = 4096;
+
+    private static final long FREE = 0;
+
+    private volatile long[] sorted;
+    private volatile int size;
+    private long[] table;
+    private int mask;
+
+    AdjacencySet() {
+        sorted = SortedLongArrays.EMPTY;
+    }
+
+    static AdjacencySet of(long[] sortedIds) {
+        AdjacencySet set = new AdjacencySet();
+        if (sortedIds.length <= COMPACT_LIMIT) {
+            set.sorted = sortedIds;
+            set.size = sortedIds.length;
+        } else {
+            set.fill(sortedIds);
+        }
+        return set;
+    }
+
+    int size() {
+        return size;
+    }
+
+    synchronized boolean add(long id) {
+        long[] current = sorted;
+        if (current != null) {
+            if (current.length < COMPACT_LIMIT) {
+                long[] updated = SortedLongArrays.insert(current, id);
+                if (updated == current) {
+                    return false;
+                }
+                sorted = updated;
+                size = updated.length;
+                return true;
+            }
+            if (SortedLongArrays.contains(current, id)) {
+                return false;
+            }
+            fill(current);
+        }
+
+        int slot = slot(id);
+        if (table[slot] == id) {
+            return false;
+        }
+        table[slot] = id;
+        size = size + 1;
+        if (size * 2 > table.length) {
+            resize(table.length * 2);
+        }
+        return true;
+    }
+
+    synchronized boolean remove(long id) {
+        long[] current = sorted;
+        if (current != null) {
+            long[] updated = SortedLongArrays.remove(current, id);
+            if (updated == current) {
+                return false;
+            }
+            sorted = updated;
+            size = updated.length;
+            return true;
+        }
+
+        int slot = slot(id);
+        if (table[slot] != id) {
+            return false;
+        }
+        delete(slot);
+        size = size - 1;
+        if (size <= COMPACT_LIMIT / 2) {
+            sorted = tableToSorted();
+            table = null;
+        }
+        return true;
+    }
+
+    boolean contains(long id) {
+        long[] current = sorted;
+        if (current != null) {
+            return SortedLongArrays.contains(current, id);
+        }
+        synchronized (this) {
+            return sorted != null ? SortedLongArrays.contains(sorted, id) : table[slot(id)] == id;
+        }
+    }
+
+    /**
+     * Returns the ids in ascending order. The array must not be modified, since a small set returns its own.
+     */
+    long[] toSortedArray() {
+        long[] current = sorted;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            return sorted != null ? sorted : tableToSorted();
+        }
+    }
+
+    private void fill(long[] ids) {
+        table = new long[Integer.highestOneBit(ids.length) * 4];
+        mask = table.length - 1;
+        for (long id : ids) {
+            table[slot(id)] = id;
+        }
+        size = ids.length;
+        sorted = null;
+    }
+
+    private int slot(long id) {
+        int i = home(id);
+        while (table[i] != FREE && table[i] != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private int home(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+
+    /**
+     * Empties a slot and moves later ids of the same probe run back, so lookups never stop at the hole early.
+     */
+    private void delete(int slot) {
+        int hole = slot;
+        for (int i = (hole + 1) & mask; table[i] != FREE; i = (i + 1) & mask) {
+            if (((i - home(table[i])) & mask) >= ((i - hole) & mask)) {
+                table[hole] = table[i];
+                hole = i;
+            }
+        }
+        table[hole] = FREE;
+    }
+
+    private void resize(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        mask = capacity - 1;
+        for (long id : old) {
+            if (id != FREE) {
+                table[slot(id)] = id;
+            }
+        }
+    }
+
+    private long[] tableToSorted() {
+        long[] ids = new long[size];
+        int count = 0;
+        for (long id : table) {
+            if (id != FREE) {
+                ids[count++] = id;
+            }
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.index;
+
+@FunctionalInterface
+public interface AdjacencyVisitor {
+
+    void visit(long id, long[] adjacentIds);
+}
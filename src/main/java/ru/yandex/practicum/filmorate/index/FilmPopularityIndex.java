@@ -0,0 +1,258 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FacetCount;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Ranks films by like count, globally and within each genre and release year, and keeps film and like totals
+ * per genre, MPA rating and release year. Changes of one film are applied under the lock of its like count entry,
+ * so its like count and attributes are always moved together.
+ */
+@Slf4j
+@Component
+public class FilmPopularityIndex {
+
+    private static final Comparator<Entry> BY_LIKES_DESC = Comparator.comparingLong(Entry::likeCount)
+            .reversed()
+            .thenComparingLong(Entry::filmId);
+    private static final int[] NO_GENRES = new int[0];
+
+    private final Map<Long, Long> likeCounts = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_LIKES_DESC);
+    private final Map<Long, Attributes> attributes = new ConcurrentHashMap<>();
+    private final Map<Integer, ConcurrentSkipListSet<Entry>> genreRankings = new ConcurrentHashMap<>();
+    private final Map<Integer, ConcurrentSkipListSet<Entry>> yearRankings = new ConcurrentHashMap<>();
+    private final Map<Integer, Totals> genreTotals = new ConcurrentHashMap<>();
+    private final Map<Integer, Totals> mpaTotals = new ConcurrentHashMap<>();
+    private final Map<Integer, Totals> yearTotals = new ConcurrentHashMap<>();
+
+    public void adjust(Long filmId, long delta) {
+        likeCounts.compute(filmId, (id, count) -> {
+            long oldCount = count == null ? 0 : count;
+            long newCount = Math.max(0, oldCount + delta);
+
+            move(ranking, id, oldCount, newCount);
+            Attributes film = attributes.get(id);
+            if (film != null && oldCount != newCount) {
+                for (int genreId : film.genreIds()) {
+                    move(genreRanking(genreId), id, oldCount, newCount);
+                    totals(genreTotals, genreId).likes.add(newCount - oldCount);
+                }
+                totals(mpaTotals, film.mpaId()).likes.add(newCount - oldCount);
+                if (film.year() != null) {
+                    move(yearRanking(film.year()), id, oldCount, newCount);
+                    totals(yearTotals, film.year()).likes.add(newCount - oldCount);
+                }
+            }
+            return newCount > 0 ? newCount : null;
+        });
+    }
+
+    /**
+     * Records the genres, MPA rating and release date of a created or updated film.
+     */
+    public void index(long filmId, int[] genreIds, int mpaId, LocalDate releaseDate) {
+        Attributes updated = new Attributes(genreIds, mpaId, releaseDate);
+        likeCounts.compute(filmId, (id, count) -> {
+            long likeCount = count == null ? 0 : count;
+            Attributes current = attributes.put(id, updated);
+            if (current != null) {
+                count(current, -1, -likeCount);
+                for (int genreId : current.genreIds()) {
+                    if (!updated.hasGenre(genreId)) {
+                        move(genreRanking(genreId), id, likeCount, 0);
+                    }
+                }
+                if (current.year() != null && !current.year().equals(updated.year())) {
+                    move(yearRanking(current.year()), id, likeCount, 0);
+                }
+            }
+            count(updated, 1, likeCount);
+            for (int genreId : updated.genreIds()) {
+                if (current == null || !current.hasGenre(genreId)) {
+                    move(genreRanking(genreId), id, 0, likeCount);
+                }
+            }
+            if (updated.year() != null && (current == null || !updated.year().equals(current.year()))) {
+                move(yearRanking(updated.year()), id, 0, likeCount);
+            }
+            return count;
+        });
+    }
+
+    public long getLikeCount(Long filmId) {
+        return likeCounts.getOrDefault(filmId, 0L);
+    }
+
+    public int getLikedFilmCount() {
+        return likeCounts.size();
+    }
+
+    public void forEachByLikeCount(LikeCountVisitor visitor) {
+        for (Entry entry : ranking) {
+            if (!visitor.visit(entry.filmId(), entry.likeCount())) {
+                return;
+            }
+        }
+    }
+
+    public List<Long> getTopFilmIds(int limit) {
+        return getTopFilmIds(limit, null, null);
+    }
+
+    /**
+     * Returns the most liked films of the given genre and release year, either of which may be {@code null}.
+     * With both set the year ranking is walked and filtered by genre.
+     */
+    public List<Long> getTopFilmIds(int limit, Integer genreId, Integer year) {
+        NavigableSet<Entry> source = ranking;
+        if (year != null) {
+            source = yearRankings.get(year);
+        } else if (genreId != null) {
+            source = genreRankings.get(genreId);
+        }
+        if (source == null) {
+            return List.of();
+        }
+        return source.stream()
+                .map(Entry::filmId)
+                .filter(filmId -> year == null || genreId == null || hasGenre(filmId, genreId))
+                .distinct()
+                .limit(limit)
+                .toList();
+    }
+
+    public FilmFacets getFacets(IntFunction<String> genreNames, IntFunction<String> mpaNames) {
+        return new FilmFacets(facetCounts(genreTotals, genreNames), facetCounts(mpaTotals, mpaNames),
+                facetCounts(yearTotals, year -> null));
+    }
+
+    public synchronized void rebuild(Consumer<FilmConsumer> source) {
+        likeCounts.clear();
+        ranking.clear();
+        attributes.clear();
+        genreRankings.clear();
+        yearRankings.clear();
+        genreTotals.clear();
+        mpaTotals.clear();
+        yearTotals.clear();
+
+        source.accept((filmId, likeCount, genreIds, mpaId, releaseDate) -> {
+            Attributes film = new Attributes(genreIds, mpaId, releaseDate);
+            attributes.put(filmId, film);
+            count(film, 1, likeCount);
+            if (likeCount > 0) {
+                likeCounts.put(filmId, likeCount);
+                ranking.add(new Entry(filmId, likeCount));
+                for (int genreId : film.genreIds()) {
+                    genreRanking(genreId).add(new Entry(filmId, likeCount));
+                }
+                if (film.year() != null) {
+                    yearRanking(film.year()).add(new Entry(filmId, likeCount));
+                }
+            }
+        });
+        log.debug("Popularity index rebuilt for {} films, {} of them liked", attributes.size(), likeCounts.size());
+    }
+
+    private boolean hasGenre(long filmId, int genreId) {
+        Attributes film = attributes.get(filmId);
+        return film != null && film.hasGenre(genreId);
+    }
+
+    private void count(Attributes film, int films, long likes) {
+        for (int genreId : film.genreIds()) {
+            totals(genreTotals, genreId).add(films, likes);
+        }
+        totals(mpaTotals, film.mpaId()).add(films, likes);
+        if (film.year() != null) {
+            totals(yearTotals, film.year()).add(films, likes);
+        }
+    }
+
+    private ConcurrentSkipListSet<Entry> genreRanking(int genreId) {
+        return genreRankings.computeIfAbsent(genreId, id -> new ConcurrentSkipListSet<>(BY_LIKES_DESC));
+    }
+
+    private ConcurrentSkipListSet<Entry> yearRanking(int year) {
+        return yearRankings.computeIfAbsent(year, id -> new ConcurrentSkipListSet<>(BY_LIKES_DESC));
+    }
+
+    private static void move(ConcurrentSkipListSet<Entry> ranking, long filmId, long oldCount, long newCount) {
+        // the new entry goes in first, so a concurrent reader sees the film twice rather than not at all
+        if (newCount > 0) {
+            ranking.add(new Entry(filmId, newCount));
+        }
+        if (oldCount > 0 && oldCount != newCount) {
+            ranking.remove(new Entry(filmId, oldCount));
+        }
+    }
+
+    private static Totals totals(Map<Integer, Totals> totals, int id) {
+        return totals.computeIfAbsent(id, key -> new Totals());
+    }
+
+    private static List<FacetCount> facetCounts(Map<Integer, Totals> totals, IntFunction<String> names) {
+        return totals.entrySet().stream()
+                .filter(entry -> entry.getValue().films.sum() > 0)
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new FacetCount(entry.getKey(), names.apply(entry.getKey()),
+                        entry.getValue().films.sum(), entry.getValue().likes.sum()))
+                .toList();
+    }
+
+    private record Entry(long filmId, long likeCount) {
+    }
+
+    private record Attributes(int[] genreIds, int mpaId, Integer year) {
+
+        Attributes(int[] genreIds, int mpaId, LocalDate releaseDate) {
+            this(genreIds == null ? NO_GENRES : Arrays.stream(genreIds).distinct().toArray(), mpaId,
+                    releaseDate == null ? null : releaseDate.getYear());
+        }
+
+        boolean hasGenre(int genreId) {
+            for (int id : genreIds) {
+                if (id == genreId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Totals {
+
+        private final LongAdder films = new LongAdder();
+        private final LongAdder likes = new LongAdder();
+
+        void add(int filmDelta, long likeDelta) {
+            films.add(filmDelta);
+            likes.add(likeDelta);
+        }
+    }
+
+    @FunctionalInterface
+    public interface LikeCountVisitor {
+        boolean visit(long filmId, long likeCount);
+    }
+
+    @FunctionalInterface
+    public interface FilmConsumer {
+        void accept(long filmId, long likeCount, int[] genreIds, int mpaId, LocalDate releaseDate);
+    }
+}
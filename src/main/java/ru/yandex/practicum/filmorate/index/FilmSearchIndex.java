@@ -0,0 +1,314 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+
+    private static final double POPULARITY_WEIGHT = 0.25;
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final String[] NO_TOKENS = new String[0];
+    private static final long[] EMPTY = SortedLongArrays.EMPTY;
+    private static final double NO_MATCH = -1;
+
+    private final FilmPopularityIndex popularityIndex;
+
+    private final Map<String, long[]> nameTerms = new ConcurrentHashMap<>();
+    private final Map<String, long[]> descriptionTerms = new ConcurrentHashMap<>();
+    private final Map<String, String> vocabulary = new ConcurrentHashMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    public void index(Long filmId, String name, String description) {
+        Document updated = new Document(canonical(tokenize(name)), canonical(tokenize(description)));
+        documents.compute(filmId, (id, current) -> {
+            for (Field field : Field.values()) {
+                String[] oldTokens = current == null ? NO_TOKENS : current.tokens(field);
+                String[] newTokens = updated.tokens(field);
+                Map<String, long[]> terms = terms(field);
+
+                for (String token : oldTokens) {
+                    if (!Arrays.asList(newTokens).contains(token)) {
+                        terms.computeIfPresent(token, (t, ids) -> {
+                            long[] remaining = SortedLongArrays.remove(ids, id);
+                            return remaining.length == 0 ? null : remaining;
+                        });
+                    }
+                }
+                for (String token : newTokens) {
+                    if (!Arrays.asList(oldTokens).contains(token)) {
+                        terms.compute(token, (t, ids) -> SortedLongArrays.insert(ids == null ? EMPTY : ids, id));
+                    }
+                }
+            }
+            return updated;
+        });
+    }
+
+    public List<Long> search(String query, Set<Field> fields, int limit) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0 || fields.isEmpty()) {
+            return List.of();
+        }
+
+        Field[] searchFields = fields.toArray(Field[]::new);
+        double documentCount = Math.max(1, documents.size());
+        List<TermPostings> termPostings = new ArrayList<>(queryTokens.length);
+        for (String token : queryTokens) {
+            long[][] ids = new long[searchFields.length][];
+            double[] weights = new double[searchFields.length];
+            int frequency = 0;
+            for (int f = 0; f < searchFields.length; f++) {
+                ids[f] = terms(searchFields[f]).getOrDefault(token, EMPTY);
+                weights[f] = searchFields[f].weight * Math.log(1 + documentCount / Math.max(1, ids[f].length));
+                frequency += ids[f].length;
+            }
+            if (frequency == 0) {
+                return List.of();
+            }
+            termPostings.add(new TermPostings(ids, weights, frequency));
+        }
+        termPostings.sort(Comparator.comparingInt(TermPostings::frequency));
+        return top(termPostings, limit);
+    }
+
+    private List<Long> top(List<TermPostings> terms, int limit) {
+        // unboosted entries of liked films may stay in the queue next to their boosted duplicates,
+        // so twice the limit is kept to be sure the best distinct films survive
+        PriorityQueue<Ranked> top = new PriorityQueue<>(2 * limit + 1, Ranked.WORST_FIRST);
+        TermPostings rarest = terms.getFirst();
+        boolean boostEachMatch = popularityIndex.getLikedFilmCount() >= rarest.frequency();
+
+        rarest.forEachMatch((filmId, rarestScore) -> {
+            double score = score(terms, 1, filmId);
+            if (score != NO_MATCH) {
+                score += rarestScore;
+                offer(top, 2 * limit, filmId,
+                        boostEachMatch ? rank(score, popularityIndex.getLikeCount(filmId)) : score);
+            }
+        });
+        if (!boostEachMatch) {
+            double maxScore = terms.stream().mapToDouble(TermPostings::maxScore).sum();
+            popularityIndex.forEachByLikeCount((filmId, likeCount) -> {
+                if (top.size() == 2 * limit && rank(maxScore, likeCount) < top.peek().score()) {
+                    return false;
+                }
+                double score = score(terms, 0, filmId);
+                if (score != NO_MATCH) {
+                    offer(top, 2 * limit, filmId, rank(score, likeCount));
+                }
+                return true;
+            });
+        }
+
+        Long[] ranked = new Long[top.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = top.poll().filmId();
+        }
+        return Arrays.stream(ranked).distinct().limit(limit).toList();
+    }
+
+    private static double score(List<TermPostings> terms, int from, long filmId) {
+        double score = 0;
+        for (int i = from; i < terms.size(); i++) {
+            TermPostings term = terms.get(i);
+            double termScore = 0;
+            for (int f = 0; f < term.ids().length; f++) {
+                if (SortedLongArrays.contains(term.ids()[f], filmId)) {
+                    termScore += term.weights()[f];
+                }
+            }
+            if (termScore == 0) {
+                return NO_MATCH;
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    private static double rank(double score, long likeCount) {
+        return score * (1 + POPULARITY_WEIGHT * Math.log1p(likeCount));
+    }
+
+    private static void offer(PriorityQueue<Ranked> top, int capacity, long filmId, double score) {
+        if (top.size() == capacity) {
+            Ranked worst = top.peek();
+            if (score < worst.score() || score == worst.score() && filmId > worst.filmId()) {
+                return;
+            }
+            top.poll();
+        }
+        top.add(new Ranked(filmId, score));
+    }
+
+    public int getDocumentCount() {
+        return documents.size();
+    }
+
+    public synchronized void rebuild(Consumer<DocumentConsumer> source) {
+        nameTerms.clear();
+        descriptionTerms.clear();
+        vocabulary.clear();
+        documents.clear();
+
+        Map<String, PostingsBuilder> namePostings = new HashMap<>();
+        Map<String, PostingsBuilder> descriptionPostings = new HashMap<>();
+        source.accept((filmId, name, description) -> {
+            Document document = new Document(canonical(tokenize(name)), canonical(tokenize(description)));
+            documents.put(filmId, document);
+            for (String token : document.nameTokens()) {
+                namePostings.computeIfAbsent(token, t -> new PostingsBuilder()).add(filmId);
+            }
+            for (String token : document.descriptionTokens()) {
+                descriptionPostings.computeIfAbsent(token, t -> new PostingsBuilder()).add(filmId);
+            }
+        });
+        namePostings.forEach((token, postings) -> nameTerms.put(token, postings.build()));
+        descriptionPostings.forEach((token, postings) -> descriptionTerms.put(token, postings.build()));
+        log.debug("Search index rebuilt for {} films and {} terms", documents.size(), vocabulary.size());
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return NO_TOKENS;
+        }
+
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean tokenChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                if (i - start >= MIN_TOKEN_LENGTH || Character.isDigit(normalized.charAt(start))) {
+                    tokens.add(normalized.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+        return tokens.toArray(NO_TOKENS);
+    }
+
+    private String[] canonical(String[] tokens) {
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = vocabulary.computeIfAbsent(tokens[i], token -> token);
+        }
+        return tokens;
+    }
+
+    private Map<String, long[]> terms(Field field) {
+        return switch (field) {
+            case NAME -> nameTerms;
+            case DESCRIPTION -> descriptionTerms;
+        };
+    }
+
+    public enum Field {
+        NAME(2.0),
+        DESCRIPTION(1.0);
+
+        private final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    @FunctionalInterface
+    public interface DocumentConsumer {
+        void accept(long filmId, String name, String description);
+    }
+
+    private record Document(String[] nameTokens, String[] descriptionTokens) {
+
+        String[] tokens(Field field) {
+            return switch (field) {
+                case NAME -> nameTokens;
+                case DESCRIPTION -> descriptionTokens;
+            };
+        }
+    }
+
+    private record TermPostings(long[][] ids, double[] weights, int frequency) {
+
+        double maxScore() {
+            return Arrays.stream(weights).sum();
+        }
+
+        void forEachMatch(MatchConsumer consumer) {
+            if (ids.length == 1) {
+                for (long filmId : ids[0]) {
+                    consumer.accept(filmId, weights[0]);
+                }
+                return;
+            }
+
+            long[] first = ids[0];
+            long[] second = ids[1];
+            int i = 0;
+            int j = 0;
+            while (i < first.length || j < second.length) {
+                long a = i < first.length ? first[i] : Long.MAX_VALUE;
+                long b = j < second.length ? second[j] : Long.MAX_VALUE;
+                if (a < b) {
+                    consumer.accept(a, weights[0]);
+                    i++;
+                } else if (a > b) {
+                    consumer.accept(b, weights[1]);
+                    j++;
+                } else {
+                    consumer.accept(a, weights[0] + weights[1]);
+                    i++;
+                    j++;
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface MatchConsumer {
+        void accept(long filmId, double score);
+    }
+
+    private record Ranked(long filmId, double score) {
+
+        static final Comparator<Ranked> WORST_FIRST = Comparator.comparingDouble(Ranked::score)
+                .thenComparing(Comparator.comparingLong(Ranked::filmId).reversed());
+    }
+
+    private static final class PostingsBuilder {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        long[] build() {
+            long[] built = Arrays.copyOf(ids, size);
+            Arrays.sort(built);
+            return built;
+        }
+    }
+}
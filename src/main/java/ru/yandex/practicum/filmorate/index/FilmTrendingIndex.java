@@ -0,0 +1,205 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Ranks films by exponentially decayed like counts: a like made {@code age} ago weighs {@code exp(-age / window)},
+ * so a score roughly counts the likes of the last window. All scores decay at the same rate, which keeps their
+ * order stable over time, so each film stores the logarithm of its undecayed sum and a like only moves that film.
+ * Films whose score decayed below one like made {@value #HORIZON_WINDOWS} windows ago are left out of the results.
+ * Each film also counts its live likes, and it is dropped when the last one is removed: subtracting weights in log
+ * space leaves rounding error behind, which would otherwise keep an unliked film in the results.
+ */
+@Slf4j
+@Component
+public class FilmTrendingIndex {
+
+    static final int HORIZON_WINDOWS = 20;
+
+    private final Map<Duration, DecayedRanking> rankings = new LinkedHashMap<>();
+
+    public FilmTrendingIndex(TrendingProperties properties) {
+        properties.getWindows().forEach(window -> rankings.put(window, new DecayedRanking(window)));
+    }
+
+    public Set<Duration> getWindows() {
+        return rankings.keySet();
+    }
+
+    public boolean supports(Duration window) {
+        return rankings.containsKey(window);
+    }
+
+    /**
+     * Returns how long a like keeps counting in the longest window.
+     */
+    public Duration getHorizon() {
+        return rankings.keySet().stream()
+                .max(Comparator.naturalOrder())
+                .map(window -> window.multipliedBy(HORIZON_WINDOWS))
+                .orElse(Duration.ZERO);
+    }
+
+    public void like(long filmId, long likedAtMillis) {
+        long now = System.currentTimeMillis();
+        rankings.values().forEach(ranking -> ranking.add(filmId, likedAtMillis, now));
+    }
+
+    public void unlike(long filmId, long likedAtMillis) {
+        long now = System.currentTimeMillis();
+        rankings.values().forEach(ranking -> ranking.remove(filmId, likedAtMillis, now));
+    }
+
+    public List<Long> getTopFilmIds(Duration window, int limit) {
+        DecayedRanking ranking = rankings.get(window);
+        if (ranking == null) {
+            throw new IllegalArgumentException("No trending ranking for window " + window);
+        }
+        return ranking.getTopFilmIds(System.currentTimeMillis(), limit);
+    }
+
+    public synchronized void rebuild(Consumer<LikeTimeConsumer> source) {
+        DecayedRanking[] windows = rankings.values().toArray(DecayedRanking[]::new);
+        List<Map<Long, Score>> scores = new ArrayList<>(windows.length);
+        for (int i = 0; i < windows.length; i++) {
+            scores.add(new HashMap<>());
+        }
+        long now = System.currentTimeMillis();
+        source.accept((filmId, likedAtMillis) -> {
+            for (int i = 0; i < windows.length; i++) {
+                double weight = windows[i].logWeight(likedAtMillis);
+                if (weight >= windows[i].logHorizon(now)) {
+                    scores.get(i).merge(filmId, new Score(weight, 1), Score::plus);
+                }
+            }
+        });
+        for (int i = 0; i < windows.length; i++) {
+            windows[i].rebuild(scores.get(i));
+        }
+        log.debug("Trending index rebuilt for {} films", scores.isEmpty() ? 0 : scores.getFirst().size());
+    }
+
+    @FunctionalInterface
+    public interface LikeTimeConsumer {
+        void accept(long filmId, long likedAtMillis);
+    }
+
+    private static final class DecayedRanking {
+
+        private static final Comparator<Entry> BY_SCORE_DESC = Comparator.comparingDouble(Entry::logScore)
+                .reversed()
+                .thenComparingLong(Entry::filmId);
+
+        private final double windowMillis;
+        private final Map<Long, Score> scores = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_SCORE_DESC);
+
+        DecayedRanking(Duration window) {
+            windowMillis = window.toMillis();
+        }
+
+        double logWeight(long likedAtMillis) {
+            return likedAtMillis / windowMillis;
+        }
+
+        double logHorizon(long nowMillis) {
+            return logWeight(nowMillis) - HORIZON_WINDOWS;
+        }
+
+        /**
+         * Likes older than the horizon are skipped, as a rebuild skips them, so only likes a rebuild would count
+         * are counted and an unlike of a skipped one cannot take the count of a film down to zero early.
+         */
+        void add(long filmId, long likedAtMillis, long nowMillis) {
+            double weight = logWeight(likedAtMillis);
+            if (weight >= logHorizon(nowMillis)) {
+                update(filmId, current -> current == null ? new Score(weight, 1) : current.plus(new Score(weight, 1)));
+            }
+        }
+
+        void remove(long filmId, long likedAtMillis, long nowMillis) {
+            double weight = logWeight(likedAtMillis);
+            if (weight >= logHorizon(nowMillis)) {
+                update(filmId, current -> current == null ? null : current.minus(weight));
+            }
+        }
+
+        List<Long> getTopFilmIds(long nowMillis, int limit) {
+            double horizon = logHorizon(nowMillis);
+            return ranking.stream()
+                    .takeWhile(entry -> entry.logScore() >= horizon)
+                    .map(Entry::filmId)
+                    .distinct()
+                    .limit(limit)
+                    .toList();
+        }
+
+        void rebuild(Map<Long, Score> rebuilt) {
+            scores.clear();
+            ranking.clear();
+            rebuilt.forEach((filmId, score) -> {
+                scores.put(filmId, score);
+                ranking.add(new Entry(filmId, score.logScore()));
+            });
+        }
+
+        private void update(long filmId, Function<Score, Score> scoring) {
+            scores.compute(filmId, (id, current) -> {
+                Score updated = scoring.apply(current);
+                if (updated != null && updated.likes() == 0) {
+                    updated = null;
+                }
+                if (updated != null && !Double.isInfinite(updated.logScore())) {
+                    ranking.add(new Entry(id, updated.logScore()));
+                }
+                if (current != null && (updated == null || current.logScore() != updated.logScore())) {
+                    ranking.remove(new Entry(id, current.logScore()));
+                }
+                return updated;
+            });
+        }
+
+        static double logAddExp(double a, double b) {
+            double max = Math.max(a, b);
+            return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+        }
+
+        /**
+         * Returns {@code log(exp(a) - exp(b))}, or negative infinity when rounding leaves nothing to subtract from.
+         */
+        static double logSubExp(double a, double b) {
+            if (a <= b) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            return a + Math.log1p(-Math.exp(b - a));
+        }
+
+        private record Entry(long filmId, double logScore) {
+        }
+    }
+
+    private record Score(double logScore, int likes) {
+
+        Score plus(Score other) {
+            return new Score(DecayedRanking.logAddExp(logScore, other.logScore), likes + other.likes);
+        }
+
+        Score minus(double logWeight) {
+            return new Score(DecayedRanking.logSubExp(logScore, logWeight), likes - 1);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class FriendshipIndex {
+
+    private static final long[] EMPTY = SortedLongArrays.EMPTY;
+    private static final Comparator<Suggestion> BY_MUTUAL_COUNT = Comparator.comparingInt(Suggestion::mutualCount)
+            .thenComparing(Suggestion::userId, Comparator.reverseOrder());
+
+    private final Map<Long, long[]> friendIds = new ConcurrentHashMap<>();
+    private final Map<Long, Long> followerCounts = new ConcurrentHashMap<>();
+
+    public boolean add(Long userId, Long friendId) {
+        boolean[] added = new boolean[1];
+        friendIds.compute(userId, (id, ids) -> {
+            long[] current = ids == null ? EMPTY : ids;
+            long[] updated = SortedLongArrays.insert(current, friendId);
+            added[0] = updated != current;
+            return updated;
+        });
+        if (added[0]) {
+            followerCounts.merge(friendId, 1L, Long::sum);
+        }
+        return added[0];
+    }
+
+    public boolean remove(Long userId, Long friendId) {
+        boolean[] removed = new boolean[1];
+        friendIds.computeIfPresent(userId, (id, ids) -> {
+            long[] updated = SortedLongArrays.remove(ids, friendId);
+            removed[0] = updated != ids;
+            return updated.length == 0 ? null : updated;
+        });
+        if (removed[0]) {
+            followerCounts.computeIfPresent(friendId, (id, count) -> count > 1 ? count - 1 : null);
+        }
+        return removed[0];
+    }
+
+    public boolean contains(Long userId, Long friendId) {
+        return SortedLongArrays.contains(friendIds.getOrDefault(userId, EMPTY), friendId);
+    }
+
+    public long[] getFriendIds(Long userId) {
+        return friendIds.getOrDefault(userId, EMPTY).clone();
+    }
+
+    public int getFriendCount(Long userId) {
+        return friendIds.getOrDefault(userId, EMPTY).length;
+    }
+
+    public long getFollowerCount(Long userId) {
+        return followerCounts.getOrDefault(userId, 0L);
+    }
+
+    public void forEachUserFriends(AdjacencyVisitor visitor) {
+        friendIds.forEach(visitor::visit);
+    }
+
+    public long[] getMutualFriendIds(Long userId, Long otherId) {
+        long[] first = friendIds.getOrDefault(userId, EMPTY);
+        long[] second = friendIds.getOrDefault(otherId, EMPTY);
+
+        long[] mutual = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                mutual[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(mutual, size);
+    }
+
+    public List<Long> getSuggestedFriendIds(Long userId, int limit) {
+        long[] friends = friendIds.getOrDefault(userId, EMPTY);
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        LongIntCounter mutualCounts = new LongIntCounter();
+        for (long friendId : friends) {
+            for (long candidateId : friendIds.getOrDefault(friendId, EMPTY)) {
+                if (candidateId != userId && !SortedLongArrays.contains(friends, candidateId)) {
+                    mutualCounts.increment(candidateId);
+                }
+            }
+        }
+
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(BY_MUTUAL_COUNT);
+        mutualCounts.forEach((candidateId, mutualCount) -> {
+            Suggestion suggestion = new Suggestion(candidateId, mutualCount);
+            if (top.size() < limit) {
+                top.add(suggestion);
+            } else if (BY_MUTUAL_COUNT.compare(suggestion, top.peek()) > 0) {
+                top.poll();
+                top.add(suggestion);
+            }
+        });
+        return top.stream()
+                .sorted(BY_MUTUAL_COUNT.reversed())
+                .map(Suggestion::userId)
+                .toList();
+    }
+
+    public synchronized void rebuild(Map<Long, long[]> adjacency) {
+        friendIds.clear();
+        followerCounts.clear();
+        adjacency.forEach((userId, ids) -> {
+            if (ids.length > 0) {
+                long[] sortedIds = SortedLongArrays.sortedDistinct(ids);
+                friendIds.put(userId, sortedIds);
+                for (long friendId : sortedIds) {
+                    followerCounts.merge(friendId, 1L, Long::sum);
+                }
+            }
+        });
+        log.debug("Friendship index rebuilt for {} users", friendIds.size());
+    }
+
+    private record Suggestion(long userId, int mutualCount) {
+    }
+}
@@ -0,0 +1,231 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Component
+public class LikeMatrix {
+
+    public static final int NEIGHBOUR_COUNT = 50;
+    // Films liked by more users than this say little about taste and dominate the overlap counting cost
+    public static final int MAX_LIKERS_PER_FILM = 2000;
+
+    private static final long[] EMPTY = SortedLongArrays.EMPTY;
+    private static final int PAIR_LOCK_STRIPES = 64;
+    private static final Comparator<Neighbour> BY_SIMILARITY = Comparator.comparingDouble(Neighbour::similarity)
+            .thenComparing(Comparator.comparingLong(Neighbour::userId).reversed());
+    private static final Comparator<Map.Entry<Long, Double>> BY_SCORE =
+            Map.Entry.<Long, Double>comparingByValue()
+                    .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+
+    // Each direction changes with its own per-key compute, so a reader may briefly see a new pair on the user side
+    // before the film side; that only shifts one recommendation computed in between. A like and an unlike of the
+    // same pair hold the same stripe, so they cannot interleave and leave the two directions disagreeing for good.
+    private final Map<Long, AdjacencySet> filmIdsByUser = new ConcurrentHashMap<>();
+    private final Map<Long, AdjacencySet> userIdsByFilm = new ConcurrentHashMap<>();
+    private final Object[] pairLocks = IntStream.range(0, PAIR_LOCK_STRIPES).mapToObj(i -> new Object()).toArray();
+    // writers share it, rebuild takes it alone
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    public boolean add(Long filmId, Long userId) {
+        rebuildLock.readLock().lock();
+        try {
+            synchronized (pairLock(filmId, userId)) {
+                boolean added = addTo(filmIdsByUser, userId, filmId);
+                addTo(userIdsByFilm, filmId, userId);
+                return added;
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    public boolean remove(Long filmId, Long userId) {
+        rebuildLock.readLock().lock();
+        try {
+            synchronized (pairLock(filmId, userId)) {
+                boolean removed = removeFrom(filmIdsByUser, userId, filmId);
+                removeFrom(userIdsByFilm, filmId, userId);
+                return removed;
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(Long filmId, Long userId) {
+        AdjacencySet filmIds = filmIdsByUser.get(userId);
+        return filmIds != null && filmIds.contains(filmId);
+    }
+
+    public void forEachUserLikes(AdjacencyVisitor visitor) {
+        filmIdsByUser.forEach((userId, filmIds) -> visitor.visit(userId, filmIds.toSortedArray()));
+    }
+
+    public List<Long> getRecommendedFilmIds(Long userId, int limit) {
+        long[] likedFilmIds = sortedIds(filmIdsByUser.get(userId));
+        if (likedFilmIds.length == 0) {
+            return List.of();
+        }
+
+        long[][] likers = Arrays.stream(likedFilmIds)
+                .mapToObj(userIdsByFilm::get)
+                .filter(userIds -> userIds != null && userIds.size() <= MAX_LIKERS_PER_FILM)
+                .map(AdjacencySet::toSortedArray)
+                .filter(userIds -> userIds.length > 0 && userIds.length <= MAX_LIKERS_PER_FILM)
+                .toArray(long[][]::new);
+        if (likers.length == 0) {
+            return List.of();
+        }
+
+        // every part counts the overlaps of its own range of candidate ids, found by binary search in each array
+        long minId = Arrays.stream(likers).mapToLong(userIds -> userIds[0]).min().orElseThrow();
+        long span = Arrays.stream(likers).mapToLong(userIds -> userIds[userIds.length - 1]).max().orElseThrow()
+                - minId + 1;
+        int parts = (int) Math.min(ForkJoinPool.getCommonPoolParallelism(), span);
+        List<Neighbour> neighbours = IntStream.range(0, parts)
+                .parallel()
+                .mapToObj(part -> findNeighbours(userId, likedFilmIds.length, likers,
+                        minId + partOffset(span, parts, part), minId + partOffset(span, parts, part + 1)))
+                .flatMap(List::stream)
+                .sorted(BY_SIMILARITY.reversed())
+                .limit(NEIGHBOUR_COUNT)
+                .toList();
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (Neighbour neighbour : neighbours) {
+            for (long filmId : sortedIds(filmIdsByUser.get(neighbour.userId()))) {
+                if (!SortedLongArrays.contains(likedFilmIds, filmId)) {
+                    scores.merge(filmId, neighbour.similarity(), Double::sum);
+                }
+            }
+        }
+
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(Math.min(limit, scores.size()) + 1, BY_SCORE);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.add(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        return top.stream()
+                .sorted(BY_SCORE.reversed())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public void rebuild(Map<Long, long[]> likedFilmIds) {
+        Map<Long, long[]> filmIds = new HashMap<>();
+        Map<Long, Integer> likerCounts = new HashMap<>();
+        likedFilmIds.forEach((userId, ids) -> {
+            if (ids.length > 0) {
+                long[] sortedFilmIds = SortedLongArrays.sortedDistinct(ids);
+                filmIds.put(userId, sortedFilmIds);
+                for (long filmId : sortedFilmIds) {
+                    likerCounts.merge(filmId, 1, Integer::sum);
+                }
+            }
+        });
+
+        Map<Long, long[]> userIds = new HashMap<>();
+        Map<Long, int[]> fillPositions = new HashMap<>();
+        likerCounts.forEach((filmId, count) -> {
+            userIds.put(filmId, new long[count]);
+            fillPositions.put(filmId, new int[1]);
+        });
+        filmIds.forEach((userId, ids) -> {
+            for (long filmId : ids) {
+                userIds.get(filmId)[fillPositions.get(filmId)[0]++] = userId;
+            }
+        });
+        userIds.values().forEach(Arrays::sort);
+
+        rebuildLock.writeLock().lock();
+        try {
+            filmIdsByUser.clear();
+            userIdsByFilm.clear();
+            filmIds.forEach((userId, ids) -> filmIdsByUser.put(userId, AdjacencySet.of(ids)));
+            userIds.forEach((filmId, ids) -> userIdsByFilm.put(filmId, AdjacencySet.of(ids)));
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        log.debug("Like matrix rebuilt for {} users and {} films", filmIdsByUser.size(), userIdsByFilm.size());
+    }
+
+    private List<Neighbour> findNeighbours(long userId, int likeCount, long[][] likers, long fromId, long toId) {
+        LongIntCounter overlaps = new LongIntCounter();
+        for (long[] userIds : likers) {
+            int end = SortedLongArrays.lowerBound(userIds, toId);
+            for (int i = SortedLongArrays.lowerBound(userIds, fromId); i < end; i++) {
+                if (userIds[i] != userId) {
+                    overlaps.increment(userIds[i]);
+                }
+            }
+        }
+
+        PriorityQueue<Neighbour> neighbours = new PriorityQueue<>(NEIGHBOUR_COUNT + 1, BY_SIMILARITY);
+        overlaps.forEach((likerId, overlap) -> {
+            if (neighbours.size() == NEIGHBOUR_COUNT && overlap < neighbours.peek().similarity() * likeCount) {
+                return;
+            }
+            AdjacencySet likerFilmIds = filmIdsByUser.get(likerId);
+            int union = likeCount + (likerFilmIds == null ? 0 : likerFilmIds.size()) - overlap;
+            Neighbour neighbour = new Neighbour(likerId, (double) overlap / Math.max(union, 1));
+            if (neighbours.size() < NEIGHBOUR_COUNT) {
+                neighbours.add(neighbour);
+            } else if (BY_SIMILARITY.compare(neighbour, neighbours.peek()) > 0) {
+                neighbours.poll();
+                neighbours.add(neighbour);
+            }
+        });
+        return new ArrayList<>(neighbours);
+    }
+
+    private static long partOffset(long span, int parts, int part) {
+        return part * (span / parts) + Math.min(part, span % parts);
+    }
+
+    private Object pairLock(long filmId, long userId) {
+        return pairLocks[Long.hashCode(filmId * 31 + userId) & (PAIR_LOCK_STRIPES - 1)];
+    }
+
+    private static boolean addTo(Map<Long, AdjacencySet> adjacency, long key, long id) {
+        boolean[] added = new boolean[1];
+        adjacency.compute(key, (k, ids) -> {
+            AdjacencySet updated = ids == null ? new AdjacencySet() : ids;
+            added[0] = updated.add(id);
+            return updated;
+        });
+        return added[0];
+    }
+
+    private static boolean removeFrom(Map<Long, AdjacencySet> adjacency, long key, long id) {
+        boolean[] removed = new boolean[1];
+        adjacency.computeIfPresent(key, (k, ids) -> {
+            removed[0] = ids.remove(id);
+            return ids.size() == 0 ? null : ids;
+        });
+        return removed[0];
+    }
+
+    private static long[] sortedIds(AdjacencySet ids) {
+        return ids == null ? EMPTY : ids.toSortedArray();
+    }
+
+    private record Neighbour(long userId, double similarity) {
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.index;
+
+final class LongIntCounter {
+
+    private static final long FREE = 0;
+
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    LongIntCounter() {
+        keys = new long[1024];
+        counts = new int[1024];
+        mask = keys.length - 1;
+    }
+
+    void increment(long key) {
+        int i = slot(key);
+        if (keys[i] == key) {
+            counts[i]++;
+            return;
+        }
+
+        keys[i] = key;
+        counts[i] = 1;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    void forEach(LongIntConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (keys[i] != FREE && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface LongIntConsumer {
+        void accept(long key, int count);
+    }
+}
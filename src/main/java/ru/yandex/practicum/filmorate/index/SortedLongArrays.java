@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+
+final class SortedLongArrays {
+
+    static final long[] EMPTY = new long[0];
+
+    private SortedLongArrays() {
+    }
+
+    static long[] insert(long[] values, long value) {
+        int pos = Arrays.binarySearch(values, value);
+        if (pos >= 0) {
+            return values;
+        }
+
+        int insertAt = -pos - 1;
+        long[] updated = new long[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(values, insertAt, updated, insertAt + 1, values.length - insertAt);
+        return updated;
+    }
+
+    static long[] remove(long[] values, long value) {
+        int pos = Arrays.binarySearch(values, value);
+        if (pos < 0) {
+            return values;
+        }
+
+        long[] updated = new long[values.length - 1];
+        System.arraycopy(values, 0, updated, 0, pos);
+        System.arraycopy(values, pos + 1, updated, pos, values.length - pos - 1);
+        return updated;
+    }
+
+    static long[] sortedDistinct(long[] values) {
+        return Arrays.stream(values).sorted().distinct().toArray();
+    }
+
+    static boolean contains(long[] values, long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    /**
+     * Returns the index of the first value that is not less than the given one.
+     */
+    static int lowerBound(long[] values, long value) {
+        int pos = Arrays.binarySearch(values, value);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+}
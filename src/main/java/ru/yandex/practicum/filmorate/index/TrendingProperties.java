@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.trending")
+public class TrendingProperties {
+
+    // a ranking is kept for each window, so only these can be requested
+    private List<Duration> windows = List.of(Duration.ofHours(1), Duration.ofHours(24), Duration.ofDays(7));
+}
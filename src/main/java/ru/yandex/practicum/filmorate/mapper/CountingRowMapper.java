@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.mapper;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+public abstract class CountingRowMapper<T> implements RowMapper<T> {
+
+    private final LongAdder invocations = new LongAdder();
+
+    @Override
+    public final T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        invocations.increment();
+        return map(rs);
+    }
+
+    protected abstract T map(ResultSet rs) throws SQLException;
+
+    public long getInvocationCount() {
+        return invocations.sum();
+    }
+}
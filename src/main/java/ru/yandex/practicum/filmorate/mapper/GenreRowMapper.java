@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.mapper;
 
-import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Genre;
 
@@ -8,10 +7,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 @Component
-public class GenreRowMapper implements RowMapper<Genre> {
+public class GenreRowMapper extends CountingRowMapper<Genre> {
 
     @Override
-    public Genre mapRow(ResultSet rs, int rowNum) throws SQLException {
+    protected Genre map(ResultSet rs) throws SQLException {
         return Genre.builder()
                 .id(rs.getInt("id"))
                 .name(rs.getString("name"))
@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.mapper;
 
-import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
@@ -8,10 +7,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 @Component
-public class MpaRowMapper implements RowMapper<Mpa> {
+public class MpaRowMapper extends CountingRowMapper<Mpa> {
 
     @Override
-    public Mpa mapRow(ResultSet rs, int rowNum) throws SQLException {
+    protected Mpa map(ResultSet rs) throws SQLException {
 
         return Mpa.builder()
                 .id(rs.getInt("id"))
@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.mapper;
 
-import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
 
@@ -8,10 +7,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 @Component
-public class UserRowMapper implements RowMapper<User> {
+public class UserRowMapper extends CountingRowMapper<User> {
 
     @Override
-    public User mapRow(ResultSet rs, int rowNum) throws SQLException {
+    protected User map(ResultSet rs) throws SQLException {
 
         return User.builder()
                 .id(rs.getLong("id"))
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+final class BufferCodec {
+
+    private static final int NULL_LENGTH = -1;
+    private static final long NULL_DATE = Long.MIN_VALUE;
+
+    private BufferCodec() {
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void putDate(ByteBuffer buffer, LocalDate value) {
+        buffer.putLong(value == null ? NULL_DATE : value.toEpochDay());
+    }
+
+    static LocalDate getDate(ByteBuffer buffer) {
+        long epochDay = buffer.getLong();
+        return epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    static void putIds(ByteBuffer buffer, long[] ids) {
+        buffer.putInt(ids.length);
+        for (long id : ids) {
+            buffer.putLong(id);
+        }
+    }
+
+    static long[] getIds(ByteBuffer buffer) {
+        long[] ids = new long[buffer.getInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = buffer.getLong();
+        }
+        return ids;
+    }
+}
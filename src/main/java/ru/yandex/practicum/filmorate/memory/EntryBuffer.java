@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+final class EntryBuffer {
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    ByteBuffer encode(Consumer<ByteBuffer> writer) {
+        while (true) {
+            buffer.clear();
+            try {
+                writer.accept(buffer);
+                return buffer.flip();
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import java.nio.ByteBuffer;
+
+@FunctionalInterface
+interface EntryConsumer {
+
+    void accept(EntryType type, ByteBuffer payload);
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.memory;
+
+enum EntryType {
+    FILM,
+    USER,
+    LIKE_ADDED,
+    LIKE_REMOVED,
+    FRIEND_ADDED,
+    FRIEND_REMOVED,
+    USER_LIKES,
+    USER_FRIENDS,
+    // when a like still weighing in the trending ranking was made
+    LIKE_TIME;
+
+    private static final EntryType[] VALUES = values();
+
+    byte code() {
+        return (byte) (ordinal() + 1);
+    }
+
+    static EntryType of(byte code) {
+        if (code < 1 || code > VALUES.length) {
+            throw new IllegalArgumentException("Unknown entry type " + code);
+        }
+        return VALUES[code - 1];
+    }
+}
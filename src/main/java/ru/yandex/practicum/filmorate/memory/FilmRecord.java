@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+record FilmRecord(long id, String name, String description, LocalDate releaseDate, int duration, int mpaId,
+                  int[] genreIds, long version) {
+
+    FilmRecord withId(long newId) {
+        return new FilmRecord(newId, name, description, releaseDate, duration, mpaId, genreIds, version);
+    }
+
+    FilmRecord withVersion(long newVersion) {
+        return new FilmRecord(id, name, description, releaseDate, duration, mpaId, genreIds, newVersion);
+    }
+
+    void write(ByteBuffer buffer) {
+        buffer.putLong(id);
+        BufferCodec.putString(buffer, name);
+        BufferCodec.putString(buffer, description);
+        BufferCodec.putDate(buffer, releaseDate);
+        buffer.putInt(duration);
+        buffer.putInt(mpaId);
+        buffer.putInt(genreIds.length);
+        for (int genreId : genreIds) {
+            buffer.putInt(genreId);
+        }
+        buffer.putLong(version);
+    }
+
+    static FilmRecord read(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        String name = BufferCodec.getString(buffer);
+        String description = BufferCodec.getString(buffer);
+        LocalDate releaseDate = BufferCodec.getDate(buffer);
+        int duration = buffer.getInt();
+        int mpaId = buffer.getInt();
+        int[] genreIds = new int[buffer.getInt()];
+        for (int i = 0; i < genreIds.length; i++) {
+            genreIds[i] = buffer.getInt();
+        }
+        return new FilmRecord(id, name, description, releaseDate, duration, mpaId, genreIds, buffer.getLong());
+    }
+}
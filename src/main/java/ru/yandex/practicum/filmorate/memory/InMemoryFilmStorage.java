@@ -0,0 +1,202 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.cache.GenreCache;
+import ru.yandex.practicum.filmorate.cache.MpaCache;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Versioned;
+import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.VersionStamps;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Repository
+@Timed("filmorate.repository")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.engine", havingValue = "memory")
+public class InMemoryFilmStorage implements FilmStorage {
+
+    private final MemoryStore store;
+    private final GenreCache genreCache;
+    private final MpaCache mpaCache;
+    private final FilmPopularityIndex popularityIndex;
+    private final LikeMatrix likeMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final FilmTrendingIndex trendingIndex;
+
+    @Override
+    public boolean exists(Long id) {
+        return store.getFilm(id) != null;
+    }
+
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        return ids.stream()
+                .filter(this::exists)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Optional<Film> getById(Long id) {
+        return Optional.ofNullable(store.getFilm(id)).map(this::toFilm);
+    }
+
+    @Override
+    public Optional<Long> getVersion(Long id) {
+        return Optional.ofNullable(store.getFilm(id)).map(FilmRecord::version);
+    }
+
+    @Override
+    public Optional<Versioned<Film>> getVersionedById(Long id) {
+        return Optional.ofNullable(store.getFilm(id)).map(film -> new Versioned<>(toFilm(film), film.version()));
+    }
+
+    @Override
+    public Collection<Film> getAll() {
+        return store.getFilms().values().stream()
+                .map(this::toFilm)
+                .toList();
+    }
+
+    @Override
+    public List<Film> getPage(Long afterId, Integer size) {
+        return store.getFilms().tailMap(afterId, false).values().stream()
+                .limit(size)
+                .map(this::toFilm)
+                .toList();
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        store.getFilms().values().forEach(film -> consumer.accept(toFilm(film)));
+    }
+
+    @Override
+    public Film save(Film film) {
+        FilmRecord created = store.insertFilm(toRecord(film));
+        film.setId(created.id());
+        return toFilm(created);
+    }
+
+    @Override
+    public Optional<Film> update(Film film) {
+        return store.updateFilm(toRecord(film), null).map(this::toFilm);
+    }
+
+    @Override
+    public Optional<Film> update(Film film, long expectedVersion) {
+        return store.updateFilm(toRecord(film), expectedVersion).map(this::toFilm);
+    }
+
+    @Override
+    public void addLike(Long id, Long userId) {
+        store.addLike(id, userId);
+    }
+
+    @Override
+    public boolean removeLike(Long id, Long userId) {
+        return store.removeLike(id, userId);
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        return store.addLikes(likes);
+    }
+
+    @Override
+    public List<Film> getMostPopularFilms(Integer limit, Integer genreId, Integer year) {
+        return getByIdsInOrder(popularityIndex.getTopFilmIds(limit, genreId, year));
+    }
+
+    @Override
+    public List<Film> getTrendingFilms(Duration window, Integer limit) {
+        return getByIdsInOrder(trendingIndex.getTopFilmIds(window, limit));
+    }
+
+    @Override
+    public long getMostPopularFilmsVersion(Integer limit, Integer genreId, Integer year) {
+        return VersionStamps.of(popularityIndex.getTopFilmIds(limit, genreId, year),
+                id -> getVersion(id).orElse(VersionStamps.MISSING));
+    }
+
+    @Override
+    public FilmFacets getFacets() {
+        return popularityIndex.getFacets(genreId -> genreCache.getById(genreId).map(Genre::getName).orElse(null),
+                mpaId -> mpaCache.getById(mpaId).map(Mpa::getName).orElse(null));
+    }
+
+    @Override
+    public List<Film> search(String query, Set<FilmSearchIndex.Field> fields, Integer limit) {
+        return getByIdsInOrder(searchIndex.search(query, fields, limit));
+    }
+
+    @Override
+    public List<Film> getRecommendations(Long userId, Integer limit) {
+        return getByIdsInOrder(likeMatrix.getRecommendedFilmIds(userId, limit));
+    }
+
+    @Override
+    public void rebuildIndexes() {
+        store.rebuildIndexes();
+    }
+
+    private List<Film> getByIdsInOrder(List<Long> filmIds) {
+        return filmIds.stream()
+                .map(store::getFilm)
+                .filter(Objects::nonNull)
+                .map(this::toFilm)
+                .toList();
+    }
+
+    private FilmRecord toRecord(Film film) {
+        int[] genreIds = film.getGenres() == null ? new int[0] : film.getGenres().stream()
+                .mapToInt(Genre::getId)
+                .sorted()
+                .distinct()
+                .toArray();
+        return new FilmRecord(film.getId() == null ? 0 : film.getId(),
+                film.getName(),
+                film.getDescription(),
+                film.getReleaseDate(),
+                film.getDuration() == null ? 0 : film.getDuration(),
+                film.getMpa().getId(),
+                genreIds,
+                0);
+    }
+
+    private Film toFilm(FilmRecord film) {
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (int genreId : film.genreIds()) {
+            genreCache.getById(genreId).ifPresent(genres::add);
+        }
+
+        return Film.builder()
+                .id(film.id())
+                .name(film.name())
+                .description(film.description())
+                .releaseDate(film.releaseDate())
+                .duration(film.duration())
+                .genres(genres)
+                .mpa(mpaCache.getById(film.mpaId()).orElse(null))
+                .build();
+    }
+}
@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDegree;
+import ru.yandex.practicum.filmorate.model.Versioned;
+import ru.yandex.practicum.filmorate.repository.UserStorage;
+import ru.yandex.practicum.filmorate.repository.VersionStamps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Repository
+@Timed("filmorate.repository")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.engine", havingValue = "memory")
+public class InMemoryUserStorage implements UserStorage {
+
+    private final MemoryStore store;
+    private final FriendshipIndex friendshipIndex;
+
+    @Override
+    public boolean exists(Long id) {
+        return store.getUser(id) != null;
+    }
+
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        return ids.stream()
+                .filter(this::exists)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Optional<User> getById(Long id) {
+        return Optional.ofNullable(store.getUser(id)).map(InMemoryUserStorage::toUser);
+    }
+
+    @Override
+    public Optional<Long> getVersion(Long id) {
+        return Optional.ofNullable(store.getUser(id)).map(UserRecord::version);
+    }
+
+    @Override
+    public Optional<Versioned<User>> getVersionedById(Long id) {
+        return Optional.ofNullable(store.getUser(id)).map(user -> new Versioned<>(toUser(user), user.version()));
+    }
+
+    @Override
+    public Collection<User> getAll() {
+        return store.getUsers().values().stream()
+                .map(InMemoryUserStorage::toUser)
+                .toList();
+    }
+
+    @Override
+    public List<User> getPage(Long afterId, Integer size) {
+        return store.getUsers().tailMap(afterId, false).values().stream()
+                .limit(size)
+                .map(InMemoryUserStorage::toUser)
+                .toList();
+    }
+
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        store.getUsers().values().forEach(user -> consumer.accept(toUser(user)));
+    }
+
+    @Override
+    public User save(User user) {
+        String userName = (user.getName() == null || user.getName().isBlank()) ? user.getLogin() : user.getName();
+
+        UserRecord created = store.insertUser(toRecord(user, userName));
+        user.setId(created.id());
+        user.setName(userName);
+        return user;
+    }
+
+    @Override
+    public Optional<User> update(User user) {
+        return updateUser(user, null);
+    }
+
+    @Override
+    public Optional<User> update(User user, long expectedVersion) {
+        return updateUser(user, expectedVersion);
+    }
+
+    private Optional<User> updateUser(User user, Long expectedVersion) {
+        String userName = (user.getName() == null || user.getName().isBlank()) ? user.getLogin() : user.getName();
+
+        return store.updateUser(toRecord(user, userName), expectedVersion).map(InMemoryUserStorage::toUser);
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        store.addFriend(userId, friendId);
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        return store.removeFriend(userId, friendId);
+    }
+
+    @Override
+    public boolean[] addFriends(List<Friendship> friendships) {
+        return store.addFriends(friendships);
+    }
+
+    @Override
+    public List<User> getFriendsByUserId(Long id) {
+        return getByIds(Arrays.stream(friendshipIndex.getFriendIds(id)).boxed().toList());
+    }
+
+    @Override
+    public Versioned<List<User>> getVersionedFriendsByUserId(Long id) {
+        List<UserRecord> friends = Arrays.stream(friendshipIndex.getFriendIds(id))
+                .mapToObj(store::getUser)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<Long, Long> versions = friends.stream().collect(Collectors.toMap(UserRecord::id, UserRecord::version));
+        return new Versioned<>(friends.stream().map(InMemoryUserStorage::toUser).toList(),
+                VersionStamps.of(friends.stream().map(UserRecord::id).toList(), versions::get));
+    }
+
+    @Override
+    public List<User> getMutualFriends(Long id, Long otherId) {
+        return getByIds(Arrays.stream(friendshipIndex.getMutualFriendIds(id, otherId)).boxed().toList());
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(Long id, Integer limit) {
+        return getByIds(friendshipIndex.getSuggestedFriendIds(id, limit));
+    }
+
+    @Override
+    public UserDegree getDegree(Long id) {
+        return new UserDegree(id, friendshipIndex.getFriendCount(id), friendshipIndex.getFollowerCount(id));
+    }
+
+    @Override
+    public void rebuildIndexes() {
+        // friendships have no copy outside the friendship index, there is nothing to rebuild it from
+    }
+
+    private List<User> getByIds(List<Long> ids) {
+        return ids.stream()
+                .map(store::getUser)
+                .filter(Objects::nonNull)
+                .map(InMemoryUserStorage::toUser)
+                .toList();
+    }
+
+    private static UserRecord toRecord(User user, String userName) {
+        return new UserRecord(user.getId() == null ? 0 : user.getId(),
+                user.getEmail(),
+                user.getLogin(),
+                userName,
+                user.getBirthday(),
+                0);
+    }
+
+    private static User toUser(UserRecord user) {
+        return User.builder()
+                .id(user.id())
+                .email(user.email())
+                .login(user.login())
+                .name(user.name())
+                .birthday(user.birthday())
+                .build();
+    }
+}
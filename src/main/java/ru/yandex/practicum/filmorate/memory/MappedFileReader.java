@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+final class MappedFileReader implements Closeable {
+
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    MappedFileReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOW_SIZE));
+    }
+
+    long position() {
+        return windowStart + window.position();
+    }
+
+    long remaining() {
+        return size - position();
+    }
+
+    ByteBuffer read(int bytes) throws IOException {
+        if (bytes > remaining()) {
+            throw new IOException("Unexpected end of file at offset " + position());
+        }
+        if (window.remaining() < bytes) {
+            long start = position();
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start,
+                    Math.max(WINDOW_SIZE, bytes)));
+            windowStart = start;
+        }
+        ByteBuffer slice = window.slice(window.position(), bytes);
+        window.position(window.position() + bytes);
+        return slice;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+final class MappedFileWriter implements Closeable {
+
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    MappedFileWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        window = channel.map(FileChannel.MapMode.READ_WRITE, 0, WINDOW_SIZE);
+    }
+
+    void write(ByteBuffer source) {
+        if (window.remaining() < source.remaining()) {
+            try {
+                window.force();
+                windowStart += window.position();
+                window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart,
+                        Math.max(WINDOW_SIZE, source.remaining()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        window.put(source);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            window.force();
+            channel.truncate(windowStart + window.position());
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.storage.memory")
+public class MemoryStorageProperties {
+
+    private Path directory = Path.of("db", "memory");
+    private Duration snapshotInterval = Duration.ofMinutes(10);
+    // how often logged operations are forced to disk, so at most this much is lost on a crash; zero forces each one
+    private Duration syncInterval = Duration.ofMillis(50);
+    private int lockStripes = 256;
+}
@@ -0,0 +1,543 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLog;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventType;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.repository.AdjacencyCollector;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Films, users, likes and friendships held in memory. Likes and friendships live in {@link LikeMatrix} and
+ * {@link FriendshipIndex}, which double as their only copy. Every change is written to the {@link OperationLog}
+ * before it is applied, and a {@link SnapshotFile} taken in the background lets the log be cut. The database is
+ * only read once, to seed an empty storage directory.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.engine", havingValue = "memory")
+public class MemoryStore {
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final GenreRepository genreRepository;
+    private final FilmPopularityIndex popularityIndex;
+    private final LikeMatrix likeMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final FriendshipIndex friendshipIndex;
+    private final MemoryStorageProperties properties;
+    private final EdgeEventLog edgeEventLog;
+    private final ChangeFeed changeFeed;
+    private final FilmTrendingIndex trendingIndex;
+
+    private final NavigableMap<Long, FilmRecord> films = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, UserRecord> users = new ConcurrentSkipListMap<>();
+    private final AtomicLong lastFilmId = new AtomicLong();
+    private final AtomicLong lastUserId = new AtomicLong();
+    // times of the likes within the trending horizon; older likes no longer move the ranking and are dropped
+    private final Map<FilmLike, Long> likeTimes = new ConcurrentHashMap<>();
+    // writers share it while an operation is logged and applied; a checkpoint takes it alone to cut the log
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    private StripedLocks locks;
+    private OperationLog operationLog;
+    private long snapshotSequence = -1;
+    private ScheduledExecutorService scheduler;
+    private ScheduledExecutorService syncer;
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path directory = properties.getDirectory();
+        Files.createDirectories(directory);
+        locks = new StripedLocks(properties.getLockStripes());
+        Duration syncInterval = properties.getSyncInterval();
+        operationLog = new OperationLog(directory, syncInterval.isZero());
+
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            recover(snapshot);
+        } else {
+            reseed();
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "memory-storage-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getSnapshotInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkpointQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        // a thread of its own, so a long snapshot does not stretch the window of operations that are not durable yet
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "memory-storage-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!syncInterval.isZero()) {
+            syncer.scheduleWithFixedDelay(this::syncQuietly, syncInterval.toMillis(), syncInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+        log.info("In-memory storage started in {} with {} films and {} users", directory.toAbsolutePath(),
+                films.size(), users.size());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        scheduler.shutdown();
+        syncer.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        syncer.awaitTermination(1, TimeUnit.MINUTES);
+        checkpoint();
+        operationLog.close();
+    }
+
+    /**
+     * Drops the snapshot and the operation log and loads films, users, likes and friendships from the database.
+     */
+    public void reseed() throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            operationLog.deleteAll();
+            Files.deleteIfExists(properties.getDirectory().resolve(SNAPSHOT_FILE));
+            loadFromDatabase();
+            rebuildIndexes();
+            operationLog.open(0);
+            snapshotSequence = -1;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        checkpoint();
+    }
+
+    public synchronized void checkpoint() throws IOException {
+        long sequence;
+        checkpointLock.writeLock().lock();
+        try {
+            sequence = operationLog.rollover();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        long horizon = System.currentTimeMillis() - trendingIndex.getHorizon().toMillis();
+        likeTimes.values().removeIf(likedAt -> likedAt < horizon);
+        if (sequence == snapshotSequence) {
+            return;
+        }
+
+        // the copy is fuzzy: changes logged after the cut may or may not be in it, replaying them again is harmless
+        long startTime = System.currentTimeMillis();
+        SnapshotFile.write(properties.getDirectory().resolve(SNAPSHOT_FILE), sequence, writer -> {
+            films.values().forEach(film -> writer.write(EntryType.FILM, film::write));
+            users.values().forEach(user -> writer.write(EntryType.USER, user::write));
+            likeMatrix.forEachUserLikes((userId, filmIds) -> writer.write(EntryType.USER_LIKES,
+                    buffer -> BufferCodec.putIds(buffer.putLong(userId), filmIds)));
+            friendshipIndex.forEachUserFriends((userId, friendIds) -> writer.write(EntryType.USER_FRIENDS,
+                    buffer -> BufferCodec.putIds(buffer.putLong(userId), friendIds)));
+            likeTimes.forEach((like, likedAt) -> writer.write(EntryType.LIKE_TIME,
+                    buffer -> buffer.putLong(like.getFilmId()).putLong(like.getUserId()).putLong(likedAt)));
+        });
+        operationLog.deleteSegmentsBefore(sequence + 1);
+        snapshotSequence = sequence;
+        log.debug("Snapshot up to operation {} written in {} ms", sequence, System.currentTimeMillis() - startTime);
+    }
+
+    public void rebuildIndexes() {
+        Map<Long, Long> likeCounts = new HashMap<>();
+        likeMatrix.forEachUserLikes((userId, filmIds) -> {
+            for (long filmId : filmIds) {
+                likeCounts.merge(filmId, 1L, Long::sum);
+            }
+        });
+        popularityIndex.rebuild(index -> films.values().forEach(film -> index.accept(film.id(),
+                likeCounts.getOrDefault(film.id(), 0L), film.genreIds(), film.mpaId(), film.releaseDate())));
+        searchIndex.rebuild(documents -> films.values()
+                .forEach(film -> documents.accept(film.id(), film.name(), film.description())));
+        trendingIndex.rebuild(likes -> likeTimes.forEach((like, likedAt) -> likes.accept(like.getFilmId(), likedAt)));
+    }
+
+    FilmRecord getFilm(long id) {
+        return films.get(id);
+    }
+
+    NavigableMap<Long, FilmRecord> getFilms() {
+        return films;
+    }
+
+    UserRecord getUser(long id) {
+        return users.get(id);
+    }
+
+    NavigableMap<Long, UserRecord> getUsers() {
+        return users;
+    }
+
+    FilmRecord insertFilm(FilmRecord film) {
+        return write(() -> {
+            FilmRecord created = film.withId(lastFilmId.incrementAndGet()).withVersion(0);
+            operationLog.append(EntryType.FILM, created::write);
+            films.put(created.id(), created);
+            searchIndex.index(created.id(), created.name(), created.description());
+            popularityIndex.index(created.id(), created.genreIds(), created.mpaId(), created.releaseDate());
+            changeFeed.publish(ChangeType.FILM_CREATED, created.id(), null);
+            return created;
+        });
+    }
+
+    Optional<FilmRecord> updateFilm(FilmRecord film, Long expectedVersion) {
+        return write(film.id(), () -> {
+            FilmRecord current = films.get(film.id());
+            if (current == null) {
+                return Optional.empty();
+            }
+            if (expectedVersion != null && current.version() != expectedVersion) {
+                throw new OptimisticLockingFailureException("Film " + film.id() +
+                        " has been modified since version " + expectedVersion);
+            }
+
+            FilmRecord updated = film.withVersion(current.version() + 1);
+            operationLog.append(EntryType.FILM, updated::write);
+            films.put(updated.id(), updated);
+            searchIndex.index(updated.id(), updated.name(), updated.description());
+            popularityIndex.index(updated.id(), updated.genreIds(), updated.mpaId(), updated.releaseDate());
+            changeFeed.publish(ChangeType.FILM_UPDATED, updated.id(), null);
+            return Optional.of(updated);
+        });
+    }
+
+    UserRecord insertUser(UserRecord user) {
+        return write(() -> {
+            UserRecord created = user.withId(lastUserId.incrementAndGet()).withVersion(0);
+            operationLog.append(EntryType.USER, created::write);
+            users.put(created.id(), created);
+            changeFeed.publish(ChangeType.USER_CREATED, created.id(), null);
+            return created;
+        });
+    }
+
+    Optional<UserRecord> updateUser(UserRecord user, Long expectedVersion) {
+        return write(user.id(), () -> {
+            UserRecord current = users.get(user.id());
+            if (current == null) {
+                return Optional.empty();
+            }
+            if (expectedVersion != null && current.version() != expectedVersion) {
+                throw new OptimisticLockingFailureException("User " + user.id() +
+                        " has been modified since version " + expectedVersion);
+            }
+
+            UserRecord updated = user.withVersion(current.version() + 1);
+            operationLog.append(EntryType.USER, updated::write);
+            users.put(updated.id(), updated);
+            changeFeed.publish(ChangeType.USER_UPDATED, updated.id(), null);
+            return Optional.of(updated);
+        });
+    }
+
+    boolean addLike(long filmId, long userId) {
+        return write(() -> {
+            requireExisting(films, filmId, users, userId);
+            return applyLike(filmId, userId);
+        });
+    }
+
+    boolean[] addLikes(List<FilmLike> likes) {
+        return write(() -> {
+            likes.forEach(like -> requireExisting(films, like.getFilmId(), users, like.getUserId()));
+            boolean[] added = new boolean[likes.size()];
+            for (int i = 0; i < added.length; i++) {
+                added[i] = applyLike(likes.get(i).getFilmId(), likes.get(i).getUserId());
+            }
+            return added;
+        });
+    }
+
+    boolean removeLike(long filmId, long userId) {
+        return write(filmId, () -> {
+            if (!likeMatrix.contains(filmId, userId)) {
+                return false;
+            }
+            operationLog.append(EntryType.LIKE_REMOVED, buffer -> buffer.putLong(filmId).putLong(userId));
+            likeMatrix.remove(filmId, userId);
+            popularityIndex.adjust(filmId, -1);
+            Long likedAt = likeTimes.remove(new FilmLike(filmId, userId));
+            if (likedAt != null) {
+                trendingIndex.unlike(filmId, likedAt);
+            }
+            edgeEventLog.record(EdgeEventType.LIKE_REMOVED, userId, filmId);
+            changeFeed.publish(ChangeType.LIKE_REMOVED, filmId, userId);
+            return true;
+        });
+    }
+
+    boolean addFriend(long userId, long friendId) {
+        return write(() -> {
+            requireExisting(users, userId, users, friendId);
+            return applyFriend(userId, friendId);
+        });
+    }
+
+    boolean[] addFriends(List<Friendship> friendships) {
+        return write(() -> {
+            friendships.forEach(friendship ->
+                    requireExisting(users, friendship.getUserId(), users, friendship.getFriendId()));
+            boolean[] added = new boolean[friendships.size()];
+            for (int i = 0; i < added.length; i++) {
+                added[i] = applyFriend(friendships.get(i).getUserId(), friendships.get(i).getFriendId());
+            }
+            return added;
+        });
+    }
+
+    boolean removeFriend(long userId, long friendId) {
+        return write(userId, () -> {
+            if (!friendshipIndex.contains(userId, friendId)) {
+                return false;
+            }
+            operationLog.append(EntryType.FRIEND_REMOVED, buffer -> buffer.putLong(userId).putLong(friendId));
+            friendshipIndex.remove(userId, friendId);
+            edgeEventLog.record(EdgeEventType.FRIEND_REMOVED, userId, friendId);
+            changeFeed.publish(ChangeType.FRIEND_REMOVED, userId, friendId);
+            return true;
+        });
+    }
+
+    private boolean applyLike(long filmId, long userId) {
+        Lock stripe = locks.get(filmId);
+        stripe.lock();
+        try {
+            if (likeMatrix.contains(filmId, userId)) {
+                return false;
+            }
+            long likedAt = System.currentTimeMillis();
+            operationLog.append(EntryType.LIKE_ADDED,
+                    buffer -> buffer.putLong(filmId).putLong(userId).putLong(likedAt));
+            likeMatrix.add(filmId, userId);
+            popularityIndex.adjust(filmId, 1);
+            likeTimes.put(new FilmLike(filmId, userId), likedAt);
+            trendingIndex.like(filmId, likedAt);
+            edgeEventLog.record(EdgeEventType.LIKE_ADDED, userId, filmId);
+            changeFeed.publish(ChangeType.LIKE_ADDED, filmId, userId);
+            return true;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private boolean applyFriend(long userId, long friendId) {
+        Lock stripe = locks.get(userId);
+        stripe.lock();
+        try {
+            if (friendshipIndex.contains(userId, friendId)) {
+                return false;
+            }
+            operationLog.append(EntryType.FRIEND_ADDED, buffer -> buffer.putLong(userId).putLong(friendId));
+            friendshipIndex.add(userId, friendId);
+            edgeEventLog.record(EdgeEventType.FRIEND_ADDED, userId, friendId);
+            changeFeed.publish(ChangeType.FRIEND_ADDED, userId, friendId);
+            return true;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> operation) {
+        checkpointLock.readLock().lock();
+        try {
+            return operation.get();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(long key, Supplier<T> operation) {
+        Lock stripe = locks.get(key);
+        return write(() -> {
+            stripe.lock();
+            try {
+                return operation.get();
+            } finally {
+                stripe.unlock();
+            }
+        });
+    }
+
+    private static void requireExisting(Map<Long, ?> entities, long id, Map<Long, ?> otherEntities, long otherId) {
+        if (!entities.containsKey(id) || !otherEntities.containsKey(otherId)) {
+            throw new DataIntegrityViolationException("Referenced entity " + id + " or " + otherId +
+                    " does not exist");
+        }
+    }
+
+    private void recover(Path snapshot) throws IOException {
+        long startTime = System.currentTimeMillis();
+        clear();
+        Map<Long, long[]> likes = new HashMap<>();
+        Map<Long, long[]> friendships = new HashMap<>();
+        long sequence = SnapshotFile.read(snapshot, (type, payload) -> {
+            switch (type) {
+                case FILM -> putFilm(FilmRecord.read(payload));
+                case USER -> putUser(UserRecord.read(payload));
+                case USER_LIKES -> likes.put(payload.getLong(), BufferCodec.getIds(payload));
+                case USER_FRIENDS -> friendships.put(payload.getLong(), BufferCodec.getIds(payload));
+                case LIKE_TIME -> likeTimes.put(new FilmLike(payload.getLong(), payload.getLong()), payload.getLong());
+                default -> throw new IllegalStateException("Unexpected snapshot entry " + type);
+            }
+        });
+        likeMatrix.rebuild(likes);
+        friendshipIndex.rebuild(friendships);
+
+        long lastSequence = operationLog.replay(sequence, this::replay);
+        operationLog.open(lastSequence);
+        snapshotSequence = sequence;
+        rebuildIndexes();
+        log.info("Recovered snapshot up to operation {} and {} logged operations in {} ms", sequence,
+                lastSequence - sequence, System.currentTimeMillis() - startTime);
+    }
+
+    private void replay(EntryType type, ByteBuffer payload) {
+        switch (type) {
+            case FILM -> putFilm(FilmRecord.read(payload));
+            case USER -> putUser(UserRecord.read(payload));
+            case LIKE_ADDED -> replayLike(payload.getLong(), payload.getLong(), payload);
+            case LIKE_REMOVED -> {
+                long filmId = payload.getLong();
+                long userId = payload.getLong();
+                likeMatrix.remove(filmId, userId);
+                likeTimes.remove(new FilmLike(filmId, userId));
+            }
+            case FRIEND_ADDED -> friendshipIndex.add(payload.getLong(), payload.getLong());
+            case FRIEND_REMOVED -> friendshipIndex.remove(payload.getLong(), payload.getLong());
+            default -> throw new IllegalStateException("Unexpected operation log entry " + type);
+        }
+    }
+
+    private void replayLike(long filmId, long userId, ByteBuffer payload) {
+        likeMatrix.add(filmId, userId);
+        // entries logged before like times were kept have none, those likes count as made long ago
+        if (payload.remaining() >= Long.BYTES) {
+            likeTimes.put(new FilmLike(filmId, userId), payload.getLong());
+        }
+    }
+
+    private void loadFromDatabase() {
+        long startTime = System.currentTimeMillis();
+        clear();
+        Map<Long, List<Integer>> filmGenreIds = genreRepository.getAllFilmGenreIds();
+        jdbc.getJdbcOperations().query("select * from films order by id", (RowCallbackHandler) rs ->
+                putFilm(new FilmRecord(rs.getLong("id"),
+                        rs.getString("name"),
+                        rs.getString("description"),
+                        toLocalDate(rs.getDate("release_date")),
+                        rs.getInt("duration"),
+                        rs.getInt("mpa_id"),
+                        filmGenreIds.getOrDefault(rs.getLong("id"), List.of()).stream()
+                                .mapToInt(Integer::intValue)
+                                .sorted()
+                                .toArray(),
+                        rs.getLong("version"))));
+        jdbc.getJdbcOperations().query("select * from users order by id", (RowCallbackHandler) rs ->
+                putUser(new UserRecord(rs.getLong("id"),
+                        rs.getString("email"),
+                        rs.getString("login"),
+                        rs.getString("name"),
+                        toLocalDate(rs.getDate("birthday")),
+                        rs.getLong("version"))));
+
+        AdjacencyCollector likes = new AdjacencyCollector("user_id", "film_id");
+        jdbc.getJdbcOperations().query("select user_id, film_id from films_likes order by user_id, film_id", likes);
+        likeMatrix.rebuild(likes.getAdjacency());
+        AdjacencyCollector friendships = new AdjacencyCollector("user_id", "friend_id");
+        jdbc.getJdbcOperations().query("select user_id, friend_id from users_friends order by user_id, friend_id",
+                friendships);
+        friendshipIndex.rebuild(friendships.getAdjacency());
+        MapSqlParameterSource params = new MapSqlParameterSource("horizon",
+                new Timestamp(System.currentTimeMillis() - trendingIndex.getHorizon().toMillis()));
+        jdbc.query("select film_id, user_id, liked_at from films_likes where liked_at >= :horizon", params,
+                (RowCallbackHandler) rs -> likeTimes.put(new FilmLike(rs.getLong("film_id"), rs.getLong("user_id")),
+                        rs.getTimestamp("liked_at").getTime()));
+        log.info("Loaded {} films and {} users from the database in {} ms", films.size(), users.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    private void clear() {
+        films.clear();
+        users.clear();
+        likeTimes.clear();
+        lastFilmId.set(0);
+        lastUserId.set(0);
+    }
+
+    private void putFilm(FilmRecord film) {
+        films.put(film.id(), film);
+        lastFilmId.accumulateAndGet(film.id(), Math::max);
+    }
+
+    private void putUser(UserRecord user) {
+        users.put(user.id(), user);
+        lastUserId.accumulateAndGet(user.id(), Math::max);
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Failed to write a storage snapshot", e);
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            operationLog.sync();
+        } catch (IOException e) {
+            log.error("Failed to force the operation log to disk", e);
+        }
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+}
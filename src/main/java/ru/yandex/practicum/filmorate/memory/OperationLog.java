@@ -0,0 +1,251 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of the operations applied to the in-memory storage. Every entry is framed as
+ * {@code [length][crc32c][sequence][type][payload]}; a torn entry at the end of the last segment is dropped on replay.
+ * Appends are forced to disk either one by one or together by {@link #sync()}, which the owner calls on a fixed
+ * interval; entries appended since the last sync may be lost on a crash.
+ */
+@Slf4j
+final class OperationLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "ops-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MIN_BODY_SIZE = Long.BYTES + Byte.BYTES;
+
+    private final Path directory;
+    private final boolean syncAppends;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final EntryBuffer entryBuffer = new EntryBuffer();
+
+    private FileChannel segment;
+    private long segmentFirstSequence;
+    private long lastSequence;
+    private volatile long syncedSequence;
+
+    OperationLog(Path directory, boolean syncAppends) {
+        this.directory = directory;
+        this.syncAppends = syncAppends;
+    }
+
+    long replay(long afterSequence, EntryConsumer consumer) throws IOException {
+        List<Path> segments = listSegments();
+        long last = afterSequence;
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            long tornAt = -1;
+            try (MappedFileReader reader = new MappedFileReader(path)) {
+                while (reader.remaining() > 0) {
+                    long start = reader.position();
+                    ByteBuffer entry = readEntry(reader);
+                    if (entry == null) {
+                        tornAt = start;
+                        break;
+                    }
+                    long sequence = entry.getLong();
+                    EntryType type = EntryType.of(entry.get());
+                    if (sequence > last) {
+                        consumer.accept(type, entry);
+                        last = sequence;
+                    }
+                }
+            }
+            if (tornAt >= 0) {
+                if (i < segments.size() - 1) {
+                    throw new IOException("Operation log segment " + path + " is corrupted at offset " + tornAt);
+                }
+                log.warn("Dropping torn operation log entry in {} at offset {}", path, tornAt);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(tornAt);
+                }
+            }
+        }
+        return last;
+    }
+
+    void open(long sequence) throws IOException {
+        lock.lock();
+        try {
+            lastSequence = sequence;
+            syncedSequence = sequence;
+            openSegment(sequence + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long append(EntryType type, Consumer<ByteBuffer> payload) {
+        lock.lock();
+        try {
+            long sequence = lastSequence + 1;
+            ByteBuffer entry = entryBuffer.encode(buffer -> {
+                buffer.position(HEADER_SIZE);
+                buffer.putLong(sequence);
+                buffer.put(type.code());
+                payload.accept(buffer);
+            });
+            int length = entry.limit() - HEADER_SIZE;
+            CRC32C crc = new CRC32C();
+            crc.update(entry.slice(HEADER_SIZE, length));
+            entry.putInt(0, length);
+            entry.putInt(Integer.BYTES, (int) crc.getValue());
+            while (entry.hasRemaining()) {
+                segment.write(entry);
+            }
+            lastSequence = sequence;
+            if (syncAppends) {
+                segment.force(false);
+                syncedSequence = sequence;
+            }
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the entries appended so far to disk. The force runs outside the append lock, so appenders are not held
+     * up by it and every entry written in the meantime becomes durable with the same call.
+     *
+     * @return the sequence up to which the log is durable
+     */
+    long sync() throws IOException {
+        FileChannel current;
+        long sequence;
+        lock.lock();
+        try {
+            current = segment;
+            sequence = lastSequence;
+        } finally {
+            lock.unlock();
+        }
+        if (sequence > syncedSequence) {
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // rolled over or closed in the meantime, both force the segment before closing it
+            }
+            lock.lock();
+            try {
+                syncedSequence = Math.max(syncedSequence, sequence);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return syncedSequence;
+    }
+
+    /**
+     * Starts a new segment so that everything logged so far can be dropped once a snapshot covers it.
+     *
+     * @return the sequence of the last entry in the previous segments
+     */
+    long rollover() throws IOException {
+        lock.lock();
+        try {
+            if (lastSequence >= segmentFirstSequence) {
+                segment.force(false);
+                segment.close();
+                syncedSequence = lastSequence;
+                openSegment(lastSequence + 1);
+            }
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void deleteSegmentsBefore(long sequence) throws IOException {
+        for (Path path : listSegments()) {
+            if (firstSequence(path) < Math.min(sequence, segmentFirstSequence)) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    void deleteAll() throws IOException {
+        close();
+        for (Path path : listSegments()) {
+            Files.delete(path);
+        }
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (segment != null && segment.isOpen()) {
+                segment.force(false);
+                segment.close();
+                syncedSequence = lastSequence;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(SEGMENT_PREFIX + "%020d".formatted(firstSequence) + SEGMENT_SUFFIX);
+        segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segmentFirstSequence = firstSequence;
+    }
+
+    private static ByteBuffer readEntry(MappedFileReader reader) throws IOException {
+        if (reader.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer header = reader.read(HEADER_SIZE);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length < MIN_BODY_SIZE || length > reader.remaining()) {
+            return null;
+        }
+
+        ByteBuffer body = reader.read(length);
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        return (int) crc.getValue() == checksum ? body : null;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(OperationLog::firstSequence))
+                    .toList();
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
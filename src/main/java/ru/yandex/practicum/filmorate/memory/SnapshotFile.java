@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped image of the in-memory storage: a header with the last operation log sequence it covers,
+ * {@code [length][type][payload]} entries, an end marker and a checksum of all entries.
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x464D5331;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    private static final int END_OF_ENTRIES = -1;
+
+    private SnapshotFile() {
+    }
+
+    static void write(Path path, long sequence, Consumer<Writer> entries) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (MappedFileWriter file = new MappedFileWriter(temporary)) {
+            file.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).putLong(sequence).flip());
+            Writer writer = new Writer(file);
+            entries.accept(writer);
+            file.write(ByteBuffer.allocate(2 * Integer.BYTES)
+                    .putInt(END_OF_ENTRIES)
+                    .putInt((int) writer.crc.getValue())
+                    .flip());
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static long read(Path path, EntryConsumer consumer) throws IOException {
+        try (MappedFileReader file = new MappedFileReader(path)) {
+            ByteBuffer header = file.read(HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException(path + " is not a storage snapshot");
+            }
+            long sequence = header.getLong();
+
+            CRC32C crc = new CRC32C();
+            int length;
+            while ((length = file.read(Integer.BYTES).getInt()) != END_OF_ENTRIES) {
+                ByteBuffer entry = file.read(length);
+                crc.update(ByteBuffer.allocate(Integer.BYTES).putInt(0, length));
+                crc.update(entry.duplicate());
+                consumer.accept(EntryType.of(entry.get()), entry);
+            }
+            if (file.read(Integer.BYTES).getInt() != (int) crc.getValue()) {
+                throw new IOException("Checksum mismatch in snapshot " + path);
+            }
+            return sequence;
+        }
+    }
+
+    static final class Writer {
+
+        private final MappedFileWriter file;
+        private final EntryBuffer entryBuffer = new EntryBuffer();
+        private final CRC32C crc = new CRC32C();
+
+        private Writer(MappedFileWriter file) {
+            this.file = file;
+        }
+
+        void write(EntryType type, Consumer<ByteBuffer> payload) {
+            ByteBuffer entry = entryBuffer.encode(buffer -> {
+                buffer.position(Integer.BYTES);
+                buffer.put(type.code());
+                payload.accept(buffer);
+            });
+            entry.putInt(0, entry.limit() - Integer.BYTES);
+            crc.update(entry.duplicate());
+            file.write(entry);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class StripedLocks {
+
+    private final Lock[] locks;
+
+    StripedLocks(int stripes) {
+        locks = new Lock[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    Lock get(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return locks[(int) (hash >>> 32) & (locks.length - 1)];
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+record UserRecord(long id, String email, String login, String name, LocalDate birthday, long version) {
+
+    UserRecord withId(long newId) {
+        return new UserRecord(newId, email, login, name, birthday, version);
+    }
+
+    UserRecord withVersion(long newVersion) {
+        return new UserRecord(id, email, login, name, birthday, newVersion);
+    }
+
+    void write(ByteBuffer buffer) {
+        buffer.putLong(id);
+        BufferCodec.putString(buffer, email);
+        BufferCodec.putString(buffer, login);
+        BufferCodec.putString(buffer, name);
+        BufferCodec.putDate(buffer, birthday);
+        buffer.putLong(version);
+    }
+
+    static UserRecord read(ByteBuffer buffer) {
+        return new UserRecord(buffer.getLong(), BufferCodec.getString(buffer), BufferCodec.getString(buffer),
+                BufferCodec.getString(buffer), BufferCodec.getDate(buffer), buffer.getLong());
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.cache.EntityCache;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class EntityCacheMetrics implements MeterBinder {
+
+    private final List<EntityCache<?>> caches;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (EntityCache<?> cache : caches) {
+            CaffeineCacheMetrics.monitor(registry, cache.getNativeCache(), cache.getName());
+            Gauge.builder("cache.hit.ratio", cache, EntityCacheMetrics::getHitRatio)
+                    .description("Share of entity cache lookups served from the cache")
+                    .tag("cache", cache.getName())
+                    .register(registry);
+        }
+    }
+
+    private static double getHitRatio(EntityCache<?> cache) {
+        CacheStats stats = cache.getNativeCache().stats();
+        return stats.requestCount() == 0 ? 0 : stats.hitRate();
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@Component
+public class JdbcStatementCounter implements BeanPostProcessor {
+
+    private final ThreadLocal<int[]> statementCount = new ThreadLocal<>();
+
+    public void start() {
+        statementCount.set(new int[1]);
+    }
+
+    public int stop() {
+        int[] count = statementCount.get();
+        statementCount.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return countStatements(super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return countStatements(super.getConnection(username, password));
+                }
+            };
+        }
+        return bean;
+    }
+
+    private Connection countStatements(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "prepareStatement", "prepareCall", "createStatement":
+                            int[] count = statementCount.get();
+                            if (count != null) {
+                                count[0]++;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.cache.ReferenceCache;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class ReferenceCacheMetrics implements MeterBinder {
+
+    private final List<ReferenceCache<?>> caches;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ReferenceCache<?> cache : caches) {
+            FunctionCounter.builder("cache.gets", cache, ReferenceCache::getHitCount)
+                    .description("Reference cache lookups")
+                    .tag("cache", cache.getName())
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", cache, ReferenceCache::getMissCount)
+                    .description("Reference cache lookups")
+                    .tag("cache", cache.getName())
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("cache.hit.ratio", cache, ReferenceCacheMetrics::getHitRatio)
+                    .description("Share of reference cache lookups served from the cache")
+                    .tag("cache", cache.getName())
+                    .register(registry);
+        }
+    }
+
+    private static double getHitRatio(ReferenceCache<?> cache) {
+        long hits = cache.getHitCount();
+        long total = hits + cache.getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
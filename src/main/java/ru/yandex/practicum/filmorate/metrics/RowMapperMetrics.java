@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.mapper.CountingRowMapper;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class RowMapperMetrics implements MeterBinder {
+
+    private final List<CountingRowMapper<?>> rowMappers;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CountingRowMapper<?> rowMapper : rowMappers) {
+            FunctionCounter.builder("filmorate.row.mapper.invocations", rowMapper,
+                            CountingRowMapper::getInvocationCount)
+                    .description("Rows mapped from JDBC result sets")
+                    .tag("mapper", rowMapper.getClass().getSimpleName())
+                    .register(registry);
+        }
+    }
+}
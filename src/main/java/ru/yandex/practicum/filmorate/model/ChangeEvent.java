@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+
+@Getter
+@RequiredArgsConstructor
+public class ChangeEvent {
+
+    private final long sequence;
+    private final ChangeType type;
+    // the film for film and like changes, the user for user and friend changes
+    private final long id;
+    // the user who liked the film or the friend, null for entity changes
+    private final Long relatedId;
+    private final Instant timestamp;
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+public enum ChangeType {
+    FILM_CREATED,
+    FILM_UPDATED,
+    USER_CREATED,
+    USER_UPDATED,
+    LIKE_ADDED,
+    LIKE_REMOVED,
+    FRIEND_ADDED,
+    FRIEND_REMOVED
+}
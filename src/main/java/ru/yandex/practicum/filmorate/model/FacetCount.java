@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class FacetCount {
+
+    private final int id;
+    private final String name;
+    private final long filmCount;
+    private final long likeCount;
+}
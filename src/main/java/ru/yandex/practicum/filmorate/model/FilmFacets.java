@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class FilmFacets {
+
+    private final List<FacetCount> genres;
+    private final List<FacetCount> mpa;
+    private final List<FacetCount> years;
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * An entity together with the row version it was read at.
+ */
+@Getter
+@RequiredArgsConstructor
+public class Versioned<T> {
+
+    private final T value;
+    private final long version;
+}
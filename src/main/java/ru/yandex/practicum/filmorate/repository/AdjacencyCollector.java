@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AdjacencyCollector implements RowCallbackHandler {
+
+    private final String keyColumn;
+    private final String valueColumn;
+    private final Map<Long, long[]> adjacency = new HashMap<>();
+
+    private long key;
+    private long[] values = new long[16];
+    private int size;
+
+    public AdjacencyCollector(String keyColumn, String valueColumn) {
+        this.keyColumn = keyColumn;
+        this.valueColumn = valueColumn;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        long rowKey = rs.getLong(keyColumn);
+        if (rowKey != key) {
+            flush();
+            key = rowKey;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = rs.getLong(valueColumn);
+    }
+
+    public Map<Long, long[]> getAdjacency() {
+        flush();
+        return adjacency;
+    }
+
+    private void flush() {
+        if (size > 0) {
+            adjacency.put(key, Arrays.copyOf(values, size));
+            size = 0;
+        }
+    }
+}
@@ -1,59 +1,229 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.cache.GenreCache;
+import ru.yandex.practicum.filmorate.cache.MpaCache;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLog;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventType;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
 import ru.yandex.practicum.filmorate.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.model.ChangeType;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Versioned;
 
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
+@Timed("filmorate.repository")
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.engine", havingValue = "jdbc", matchIfMissing = true)
 public class FilmRepository implements FilmStorage {
 
+    private static final String SELECT_FILMS = "select f.* from films f ";
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final NamedParameterJdbcOperations jdbc;
     private final FilmRowMapper filmRowMapper;
     private final GenreRepository genreRepository;
+    private final GenreCache genreCache;
+    private final MpaCache mpaCache;
+    private final FilmPopularityIndex popularityIndex;
+    private final LikeMatrix likeMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final FilmTrendingIndex trendingIndex;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final EdgeEventLog edgeEventLog;
+    private final ChangeFeed changeFeed;
+
+    @Override
+    @PostConstruct
+    public void rebuildIndexes() {
+        likeWriteBuffer.flush();
+        rebuildPopularityIndex();
+        rebuildLikeMatrix();
+        rebuildSearchIndex();
+        rebuildTrendingIndex();
+    }
+
+    public void rebuildPopularityIndex() {
+        jdbc.getJdbcOperations().update("update films f set like_count = " +
+                "(select count(*) from films_likes fl where fl.film_id = f.id)");
+
+        AdjacencyCollector genres = new AdjacencyCollector("film_id", "genre_id");
+        jdbc.getJdbcOperations().query("select film_id, genre_id from films_genres order by film_id, genre_id",
+                genres);
+        Map<Long, long[]> genreIds = genres.getAdjacency();
+        popularityIndex.rebuild(films -> jdbc.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement("select id, like_count, mpa_id, release_date from films");
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            long id = rs.getLong("id");
+            films.accept(id, rs.getLong("like_count"), toIntArray(genreIds.get(id)), rs.getInt("mpa_id"),
+                    rs.getObject("release_date", LocalDate.class));
+        }));
+    }
+
+    public void rebuildLikeMatrix() {
+        AdjacencyCollector collector = new AdjacencyCollector("user_id", "film_id");
+        jdbc.getJdbcOperations().query("select user_id, film_id from films_likes order by user_id, film_id",
+                collector);
+        likeMatrix.rebuild(collector.getAdjacency());
+    }
+
+    public void rebuildSearchIndex() {
+        searchIndex.rebuild(documents -> jdbc.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement("select id, name, description from films order by id");
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> documents.accept(rs.getLong("id"), rs.getString("name"),
+                rs.getString("description"))));
+    }
+
+    public void rebuildTrendingIndex() {
+        trendingIndex.rebuild(likes -> jdbc.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement("select film_id, liked_at from films_likes");
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> likes.accept(rs.getLong("film_id"), rs.getTimestamp("liked_at").getTime())));
+    }
 
     @Override
     public boolean exists(Long id) {
-        String query = "select count(*) from films where id = :id";
+        String query = "select exists(select 1 from films where id = :id)";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("id", id);
 
-        Integer count = jdbc.queryForObject(query, params, Integer.class);
-        return count != null && count > 0;
+        return Boolean.TRUE.equals(jdbc.queryForObject(query, params, Boolean.class));
     }
 
     @Override
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        Set<Long> existingIds = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existingIds;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("ids", ids);
+
+        jdbc.query("select id from films where id in (:ids)", params,
+                (RowCallbackHandler) rs -> existingIds.add(rs.getLong("id")));
+        return existingIds;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Film> getById(Long id) {
-        String query = "select * from films where id = :id";
-        if (!exists(id)) {
+        return getVersionedById(id).map(Versioned::getValue);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Versioned<Film>> getVersionedById(Long id) {
+        String query = SELECT_FILMS + "where f.id = :id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("id", id);
+
+        List<Versioned<Film>> films = jdbc.query(query, params,
+                (rs, rowNum) -> new Versioned<>(filmRowMapper.mapRow(rs, rowNum), rs.getLong("version")));
+        if (films.isEmpty()) {
             return Optional.empty();
         }
+        Versioned<Film> film = films.getFirst();
+        Film assembled = assembleGenres(List.of(film.getValue()), genreRepository.getGenreIdsByFilmIds(List.of(id)))
+                .getFirst();
+        return Optional.of(new Versioned<>(assembled, film.getVersion()));
+    }
 
+    @Override
+    public Optional<Long> getVersion(Long id) {
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("id", id);
 
-        Film film = jdbc.query(query, params, filmRowMapper).getFirst();
-        return Optional.of(film);
+        return jdbc.queryForList("select version from films where id = :id", params, Long.class).stream()
+                .findFirst();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Film> getAll() {
-        String query = "select * from films";
-        return jdbc.query(query, filmRowMapper);
+        String query = SELECT_FILMS + "order by f.id";
+        return assembleGenres(jdbc.query(query, filmRowMapper), genreRepository.getAllFilmGenreIds());
     }
 
     @Override
+    public List<Film> getPage(Long afterId, Integer size) {
+        String query = SELECT_FILMS + "where f.id > :after_id order by f.id limit :size";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("after_id", afterId);
+        params.addValue("size", size);
+
+        return assembleGenres(jdbc.query(query, params, filmRowMapper));
+    }
+
+    // genre ids come in the same row as their film, so the stream holds one cursor and no second connection
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        jdbc.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement("select f.*, array(select fg.genre_id from films_genres fg " +
+                    "where fg.film_id = f.id order by fg.genre_id) genre_ids from films f order by f.id");
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            Film film = filmRowMapper.mapRow(rs, rs.getRow());
+            List<Integer> genreIds = Arrays.stream((Object[]) rs.getArray("genre_ids").getArray())
+                    .map(genreId -> ((Number) genreId).intValue())
+                    .toList();
+            assembleGenres(List.of(film), Map.of(film.getId(), genreIds));
+            consumer.accept(film);
+        });
+    }
+
+    @Override
+    @Transactional
     public Film save(Film film) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
         MapSqlParameterSource params = new MapSqlParameterSource();
@@ -67,18 +237,37 @@ public class FilmRepository implements FilmStorage {
         jdbc.update("insert into films(name, description, release_date, duration, mpa_id) " +
                         "values(:name, :description, :release_date, :duration, :mpa_id)",
                 params, keyHolder, new String[]{"id"});
-        film.setId(keyHolder.getKeyAs(Long.class));
+        Long id = keyHolder.getKeyAs(Long.class);
+        film.setId(id);
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            genreRepository.saveFilmGenres(film.getId(), film.getGenres());
+        SortedSet<Integer> genreIds = getGenreIds(film);
+        if (!genreIds.isEmpty()) {
+            genreRepository.saveFilmGenres(id, genreIds);
         }
+        int[] indexedGenreIds = toIntArray(genreIds);
+        AfterCommit.run(() -> {
+            searchIndex.index(id, film.getName(), film.getDescription());
+            popularityIndex.index(id, indexedGenreIds, film.getMpa().getId(), film.getReleaseDate());
+        });
+        changeFeed.publish(ChangeType.FILM_CREATED, id, null);
 
         log.debug("film created");
-        return getById(film.getId()).orElse(null);
+        return assemble(film, genreIds);
     }
 
     @Override
-    public Film update(Film film) {
+    @Transactional
+    public Optional<Film> update(Film film) {
+        return updateFilm(film, null);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Film> update(Film film, long expectedVersion) {
+        return updateFilm(film, expectedVersion);
+    }
+
+    private Optional<Film> updateFilm(Film film, Long expectedVersion) {
         MapSqlParameterSource params = new MapSqlParameterSource();
 
         params.addValue("name", film.getName());
@@ -87,59 +276,269 @@ public class FilmRepository implements FilmStorage {
         params.addValue("duration", film.getDuration());
         params.addValue("mpa_id", film.getMpa().getId());
         params.addValue("id", film.getId());
+        params.addValue("version", expectedVersion);
+
+        // the row lock taken here serializes concurrent genre diffs of the same film
+        int cnt = jdbc.update("update films set name = :name, description = :description, " +
+                "release_date = :release_date, duration = :duration, mpa_id = :mpa_id, version = version + 1 " +
+                "where id = :id" + (expectedVersion == null ? "" : " and version = :version"), params);
+        if (cnt == 0) {
+            if (expectedVersion != null && exists(film.getId())) {
+                throw new OptimisticLockingFailureException("Film " + film.getId() +
+                        " has been modified since version " + expectedVersion);
+            }
+            return Optional.empty();
+        }
+
+        SortedSet<Integer> genreIds = getGenreIds(film);
+        Set<Integer> currentGenreIds = new HashSet<>(genreRepository.getGenreIdsByFilmIds(List.of(film.getId()))
+                .getOrDefault(film.getId(), List.of()));
+
+        List<Integer> removed = currentGenreIds.stream().filter(genreId -> !genreIds.contains(genreId)).toList();
+        List<Integer> added = genreIds.stream().filter(genreId -> !currentGenreIds.contains(genreId)).toList();
+        if (!removed.isEmpty()) {
+            genreRepository.removeFilmGenres(film.getId(), removed);
+        }
+        if (!added.isEmpty()) {
+            genreRepository.saveFilmGenres(film.getId(), added);
+        }
+        long id = film.getId();
+        String name = film.getName();
+        String description = film.getDescription();
+        int[] indexedGenreIds = toIntArray(genreIds);
+        int mpaId = film.getMpa().getId();
+        LocalDate releaseDate = film.getReleaseDate();
+        AfterCommit.run(() -> {
+            searchIndex.index(id, name, description);
+            popularityIndex.index(id, indexedGenreIds, mpaId, releaseDate);
+        });
+        changeFeed.publish(ChangeType.FILM_UPDATED, film.getId(), null);
 
-        jdbc.update("update films set name = :name, description = :description, " +
-                "release_date = :release_date, duration = :duration, mpa_id = :mpa_id " +
-                "where id = :id", params);
+        log.debug("film updated, {} genres removed, {} added", removed.size(), added.size());
+        return Optional.of(assemble(film, genreIds));
+    }
 
-        genreRepository.removeFilmGenres(film.getId());
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            genreRepository.saveFilmGenres(film.getId(), film.getGenres());
+    private SortedSet<Integer> getGenreIds(Film film) {
+        SortedSet<Integer> genreIds = new TreeSet<>();
+        if (film.getGenres() != null) {
+            film.getGenres().forEach(genre -> genreIds.add(genre.getId()));
         }
+        return genreIds;
+    }
+
+    private static int[] toIntArray(Collection<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
 
-        log.debug("film updated");
-        return getById(film.getId()).orElse(null);
+    private static int[] toIntArray(long[] ids) {
+        return ids == null ? new int[0] : Arrays.stream(ids).mapToInt(Math::toIntExact).toArray();
+    }
+
+    private Film assemble(Film film, SortedSet<Integer> genreIds) {
+        Set<Genre> genres = new LinkedHashSet<>();
+        genreIds.forEach(genreId -> genreCache.getById(genreId).ifPresent(genres::add));
+
+        return Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .genres(genres)
+                .mpa(mpaCache.getById(film.getMpa().getId()).orElse(null))
+                .build();
     }
 
     @Override
+    @Transactional
     public void addLike(Long id, Long userId) {
+        addLikes(List.of(new FilmLike(id, userId)));
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLike(Long id, Long userId) {
         MapSqlParameterSource params = new MapSqlParameterSource();
 
         params.addValue("film_id", id);
         params.addValue("user_id", userId);
 
-        jdbc.update("insert into films_likes(film_id, user_id) " +
-                "values(:film_id, :user_id)", params);
-        log.debug("Like was added to film {} by user with id {}", id, userId);
+        if (likeWriteBuffer.isEnabled()) {
+            if (!likeMatrix.remove(id, userId)) {
+                return false;
+            }
+            popularityIndex.adjust(id, -1);
+            likeWriteBuffer.unlike(id, userId).ifPresent(likedAt -> trendingIndex.unlike(id, likedAt));
+            edgeEventLog.record(EdgeEventType.LIKE_REMOVED, userId, id);
+            changeFeed.publish(ChangeType.LIKE_REMOVED, id, userId);
+            return true;
+        }
+        List<Timestamp> removed = jdbc.queryForList("select liked_at from old table (delete from films_likes " +
+                "where film_id = :film_id and user_id = :user_id)", params, Timestamp.class);
+        int cnt = removed.size();
+        if (cnt > 0) {
+            params.addValue("cnt", cnt);
+            jdbc.update("update films set like_count = like_count - :cnt where id = :film_id", params);
+            long removedLikedAt = removed.getFirst().getTime();
+            AfterCommit.run(() -> {
+                popularityIndex.adjust(id, -cnt);
+                likeMatrix.remove(id, userId);
+                trendingIndex.unlike(id, removedLikedAt);
+            });
+            edgeEventLog.record(EdgeEventType.LIKE_REMOVED, userId, id);
+            changeFeed.publish(ChangeType.LIKE_REMOVED, id, userId);
+        }
+        log.debug("Like was removed from film {} by user with id {}", id, userId);
+        return cnt > 0;
     }
 
     @Override
-    public void removeLike(Long id, Long userId) {
-        MapSqlParameterSource params = new MapSqlParameterSource();
+    @Transactional
+    public boolean[] addLikes(List<FilmLike> likes) {
+        long likedAt = System.currentTimeMillis();
+        if (likeWriteBuffer.isEnabled()) {
+            return addBufferedLikes(likes, likedAt);
+        }
 
-        params.addValue("film_id", id);
-        params.addValue("user_id", userId);
+        Map<FilmLike, Long> requested = new HashMap<>();
+        likes.forEach(like -> requested.put(like, likedAt));
+        Set<FilmLike> inserted = LikeWriteBuffer.insertAbsent(jdbc, requested);
 
-        jdbc.update("delete from films_likes where film_id = :film_id " +
-                "and user_id = :user_id", params);
-        log.debug("Like was removed from film {} by user with id {}", id, userId);
+        // a pair repeated in the batch is only added by its first occurrence
+        boolean[] added = new boolean[likes.size()];
+        Map<Long, Long> likeCountDeltas = new HashMap<>();
+        for (int i = 0; i < added.length; i++) {
+            FilmLike like = likes.get(i);
+            added[i] = inserted.remove(like);
+            if (added[i]) {
+                likeCountDeltas.merge(like.getFilmId(), 1L, Long::sum);
+                edgeEventLog.record(EdgeEventType.LIKE_ADDED, like.getUserId(), like.getFilmId());
+                changeFeed.publish(ChangeType.LIKE_ADDED, like.getFilmId(), like.getUserId());
+            }
+        }
+
+        jdbc.batchUpdate("update films set like_count = like_count + :cnt where id = :film_id",
+                likeCountDeltas.entrySet().stream()
+                        .map(entry -> new MapSqlParameterSource()
+                                .addValue("film_id", entry.getKey())
+                                .addValue("cnt", entry.getValue()))
+                        .toArray(MapSqlParameterSource[]::new));
+        AfterCommit.run(() -> {
+            likeCountDeltas.forEach(popularityIndex::adjust);
+            for (int i = 0; i < added.length; i++) {
+                if (added[i]) {
+                    likeMatrix.add(likes.get(i).getFilmId(), likes.get(i).getUserId());
+                    trendingIndex.like(likes.get(i).getFilmId(), likedAt);
+                }
+            }
+        });
+        log.debug("Batch of {} likes was processed", likes.size());
+        return added;
+    }
+
+    // buffered changes are applied to the indexes at once, since the buffer rather than the transaction persists them
+    private boolean[] addBufferedLikes(List<FilmLike> likes, long likedAt) {
+        requireFilmsAndUsers(likes.stream()
+                .filter(like -> !likeMatrix.contains(like.getFilmId(), like.getUserId()))
+                .toList());
+
+        boolean[] added = new boolean[likes.size()];
+        for (int i = 0; i < added.length; i++) {
+            FilmLike like = likes.get(i);
+            added[i] = likeMatrix.add(like.getFilmId(), like.getUserId());
+            if (added[i]) {
+                popularityIndex.adjust(like.getFilmId(), 1);
+                trendingIndex.like(like.getFilmId(), likedAt);
+                likeWriteBuffer.like(like.getFilmId(), like.getUserId(), likedAt);
+                edgeEventLog.record(EdgeEventType.LIKE_ADDED, like.getUserId(), like.getFilmId());
+                changeFeed.publish(ChangeType.LIKE_ADDED, like.getFilmId(), like.getUserId());
+            }
+        }
+        log.debug("Batch of {} likes was buffered", likes.size());
+        return added;
+    }
+
+    // the foreign keys only check buffered likes once they are flushed
+    private void requireFilmsAndUsers(List<FilmLike> likes) {
+        if (likes.isEmpty()) {
+            return;
+        }
+
+        Set<Long> filmIds = likes.stream().map(FilmLike::getFilmId).collect(Collectors.toSet());
+        Set<Long> userIds = likes.stream().map(FilmLike::getUserId).collect(Collectors.toSet());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("film_ids", filmIds)
+                .addValue("film_count", filmIds.size())
+                .addValue("user_ids", userIds)
+                .addValue("user_count", userIds.size());
+        if (!Boolean.TRUE.equals(jdbc.queryForObject("select (select count(*) from films where id in (:film_ids)) " +
+                "= :film_count and (select count(*) from users where id in (:user_ids)) = :user_count",
+                params, Boolean.class))) {
+            throw new DataIntegrityViolationException("Referenced film or user does not exist");
+        }
     }
 
     @Override
-    public List<Film> getMostPopularFilms(Integer limit) {
-        String query = "select f.* " +
-                "from films f " +
-                "inner join (" +
-                "select fl.film_id, count(fl.user_id) as cnt " +
-                "from films_likes fl " +
-                "group by (fl.film_id) " +
-                ") fl on fl.film_id = f.id " +
-                "order by fl.cnt desc " +
-                "limit :limit";
+    public List<Film> getMostPopularFilms(Integer limit, Integer genreId, Integer year) {
+        return getByIdsInOrder(popularityIndex.getTopFilmIds(limit, genreId, year));
+    }
+
+    @Override
+    public List<Film> getTrendingFilms(Duration window, Integer limit) {
+        return getByIdsInOrder(trendingIndex.getTopFilmIds(window, limit));
+    }
+
+    @Override
+    public long getMostPopularFilmsVersion(Integer limit, Integer genreId, Integer year) {
+        return VersionStamps.of(jdbc, "films", popularityIndex.getTopFilmIds(limit, genreId, year));
+    }
+
+    @Override
+    public FilmFacets getFacets() {
+        return popularityIndex.getFacets(genreId -> genreCache.getById(genreId).map(Genre::getName).orElse(null),
+                mpaId -> mpaCache.getById(mpaId).map(Mpa::getName).orElse(null));
+    }
+
+    @Override
+    public List<Film> search(String query, Set<FilmSearchIndex.Field> fields, Integer limit) {
+        return getByIdsInOrder(searchIndex.search(query, fields, limit));
+    }
+
+    @Override
+    public List<Film> getRecommendations(Long userId, Integer limit) {
+        return getByIdsInOrder(likeMatrix.getRecommendedFilmIds(userId, limit));
+    }
+
+    private List<Film> getByIdsInOrder(List<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return List.of();
+        }
+        String query = SELECT_FILMS + "where f.id in (:ids)";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("limit", limit);
+        params.addValue("ids", filmIds);
+
+        Map<Long, Film> filmsById = jdbc.query(query, params, filmRowMapper).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        List<Film> films = filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return assembleGenres(films);
+    }
 
-        return jdbc.query(query, params, filmRowMapper);
+    private List<Film> assembleGenres(List<Film> films) {
+        List<Long> filmIds = films.stream().map(Film::getId).toList();
+        return assembleGenres(films, genreRepository.getGenreIdsByFilmIds(filmIds));
+    }
+
+    private List<Film> assembleGenres(List<Film> films, Map<Long, List<Integer>> filmGenreIds) {
+        for (Film film : films) {
+            Set<Genre> genres = new LinkedHashSet<>();
+            filmGenreIds.getOrDefault(film.getId(), List.of())
+                    .forEach(genreId -> genreCache.getById(genreId).ifPresent(genres::add));
+            film.setGenres(genres);
+        }
+        return films;
     }
 }
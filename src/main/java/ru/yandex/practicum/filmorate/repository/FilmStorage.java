@@ -1,26 +1,62 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Versioned;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     boolean exists(Long id);
 
+    Set<Long> getExistingIds(Collection<Long> ids);
+
     Optional<Film> getById(Long id);
 
+    Optional<Long> getVersion(Long id);
+
+    /**
+     * Returns the film and the version it was read at, so a tag built from the version describes that film.
+     */
+    Optional<Versioned<Film>> getVersionedById(Long id);
+
     Collection<Film> getAll();
 
+    List<Film> getPage(Long afterId, Integer size);
+
+    void streamAll(Consumer<Film> consumer);
+
     Film save(Film film);
 
-    Film update(Film film);
+    Optional<Film> update(Film film);
+
+    Optional<Film> update(Film film, long expectedVersion);
 
     void addLike(Long id, Long userId);
 
-    void removeLike(Long id, Long userId);
+    boolean removeLike(Long id, Long userId);
+
+    boolean[] addLikes(List<FilmLike> likes);
+
+    List<Film> getMostPopularFilms(Integer limit, Integer genreId, Integer year);
+
+    long getMostPopularFilmsVersion(Integer limit, Integer genreId, Integer year);
+
+    FilmFacets getFacets();
+
+    List<Film> getTrendingFilms(Duration window, Integer limit);
+
+    List<Film> search(String query, Set<FilmSearchIndex.Field> fields, Integer limit);
+
+    List<Film> getRecommendations(Long userId, Integer limit);
 
-    List<Film> getMostPopularFilms(Integer limit);
+    void rebuildIndexes();
 }
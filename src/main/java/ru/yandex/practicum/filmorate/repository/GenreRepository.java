@@ -2,15 +2,19 @@ package ru.yandex.practicum.filmorate.repository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.mapper.GenreRowMapper;
 import ru.yandex.practicum.filmorate.model.Genre;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 @Slf4j
 @Repository
@@ -20,13 +24,12 @@ public class GenreRepository {
     private final GenreRowMapper genreRowMapper;
 
     public boolean exists(Integer id) {
-        String query = "select count(*) from genres where id = :id";
+        String query = "select exists(select 1 from genres where id = :id)";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("id", id);
 
-        Integer count = jdbc.queryForObject(query, params, Integer.class);
-        return count != null && count > 0;
+        return Boolean.TRUE.equals(jdbc.queryForObject(query, params, Boolean.class));
     }
 
     public List<Genre> getAll() {
@@ -36,15 +39,11 @@ public class GenreRepository {
 
     public Optional<Genre> getById(Integer id) {
         String query = "select * from genres where id = :id";
-        if (!exists(id)) {
-            return Optional.empty();
-        }
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("id", id);
 
-        Genre genre = jdbc.query(query, params, genreRowMapper).getFirst();
-        return Optional.of(genre);
+        return jdbc.query(query, params, genreRowMapper).stream().findFirst();
     }
 
     public List<Genre> getByFilmId(Long id) {
@@ -57,23 +56,52 @@ public class GenreRepository {
         return jdbc.query(query, params, genreRowMapper);
     }
 
-    public void saveFilmGenres(Long filmId, Set<Genre> genreList) {
-        MapSqlParameterSource[] params = genreList.stream().map(genre -> {
+    public Map<Long, List<Integer>> getGenreIdsByFilmIds(Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        String query = "select film_id, genre_id from films_genres " +
+                "where film_id in (:ids) order by film_id, genre_id asc";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("ids", filmIds);
+
+        Map<Long, List<Integer>> filmGenreIds = new HashMap<>();
+        jdbc.query(query, params, collectFilmGenreIds(filmGenreIds));
+        return filmGenreIds;
+    }
+
+    public Map<Long, List<Integer>> getAllFilmGenreIds() {
+        String query = "select film_id, genre_id from films_genres order by film_id, genre_id asc";
+
+        Map<Long, List<Integer>> filmGenreIds = new HashMap<>();
+        jdbc.query(query, collectFilmGenreIds(filmGenreIds));
+        return filmGenreIds;
+    }
+
+    public void saveFilmGenres(Long filmId, Collection<Integer> genreIds) {
+        jdbc.batchUpdate("insert into films_genres(film_id, genre_id) values(:film_id, :genre_id)",
+                toFilmGenreParams(filmId, genreIds));
+        log.debug("Saved {} genres for film with id {}", genreIds.size(), filmId);
+    }
+
+    public void removeFilmGenres(Long filmId, Collection<Integer> genreIds) {
+        jdbc.batchUpdate("delete from films_genres where film_id = :film_id and genre_id = :genre_id",
+                toFilmGenreParams(filmId, genreIds));
+        log.debug("Deleted {} genres from film with id {}", genreIds.size(), filmId);
+    }
+
+    private MapSqlParameterSource[] toFilmGenreParams(Long filmId, Collection<Integer> genreIds) {
+        return genreIds.stream().map(genreId -> {
             MapSqlParameterSource mapSqlParameterSource = new MapSqlParameterSource();
             mapSqlParameterSource.addValue("film_id", filmId);
-            mapSqlParameterSource.addValue("genre_id", genre.getId());
+            mapSqlParameterSource.addValue("genre_id", genreId);
             return mapSqlParameterSource;
         }).toArray(MapSqlParameterSource[]::new);
-
-        jdbc.batchUpdate("insert into films_genres(film_id, genre_id) values(:film_id, :genre_id)", params);
-        log.debug("film genres saved");
     }
 
-    public void removeFilmGenres(Long filmId) {
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("film_id", filmId);
-
-        int cnt = jdbc.update("delete from films_genres where film_id = :film_id", params);
-        log.debug("Deleted {} genres from film with id {}", cnt, filmId);
+    private RowCallbackHandler collectFilmGenreIds(Map<Long, List<Integer>> filmGenreIds) {
+        return rs -> filmGenreIds.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>())
+                .add(rs.getInt("genre_id"));
     }
 }
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.likes.write-behind")
+public class LikeWriteBehindProperties {
+
+    private boolean enabled;
+    private int flushSize = 1000;
+    private int maxPending = 10000;
+    private Duration flushInterval = Duration.ofMillis(200);
+}
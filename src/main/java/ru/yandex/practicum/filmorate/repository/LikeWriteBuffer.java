@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeWriteBuffer {
+
+    // rows per merge or delete statement, at most three parameters each
+    static final int MERGE_CHUNK_SIZE = 1000;
+    private static final Comparator<FilmLike> BY_KEY = Comparator.comparing(FilmLike::getFilmId)
+            .thenComparing(FilmLike::getUserId);
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final PlatformTransactionManager transactionManager;
+    private final LikeWriteBehindProperties properties;
+    private final FilmTrendingIndex trendingIndex;
+
+    // the net change of each pair since the last flush; a like followed by an unlike cancels out
+    private final Map<FilmLike, Change> pending = new ConcurrentHashMap<>();
+    // changes taken by the running flush, visible until its transaction has committed or they are pending again
+    private final Map<FilmLike, Change> flushing = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Like write-behind enabled, flushing every {} ms or {} changes", interval, properties.getFlushSize());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(properties.getFlushInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+        }
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Queues a like made at {@code likedAtMillis}, the time the row is written with.
+     */
+    public void like(Long filmId, Long userId, long likedAtMillis) {
+        merge(new FilmLike(filmId, userId), new Change(false, likedAtMillis));
+        flushIfFull();
+    }
+
+    /**
+     * Queues an unlike. Returns the time of a like still waiting in the buffer, which the unlike cancels before it
+     * reaches the table. A like that is stored, or being stored by the running flush, is removed from the trending
+     * index by the flush that deletes its row, with the time read from that row.
+     */
+    public OptionalLong unlike(Long filmId, Long userId) {
+        Change older = merge(new FilmLike(filmId, userId), new Change(true, null));
+        flushIfFull();
+        return older != null && older.likedAt() != null ? OptionalLong.of(older.likedAt()) : OptionalLong.empty();
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        for (FilmLike like : pending.keySet()) {
+            pending.computeIfPresent(like, (key, change) -> {
+                flushing.put(key, change);
+                return null;
+            });
+        }
+
+        int count = flushing.size();
+        Map<FilmLike, Long> unliked;
+        try {
+            unliked = new TransactionTemplate(transactionManager).execute(status -> write(flushing));
+        } catch (RuntimeException e) {
+            flushing.forEach((like, change) -> pending.compute(like, (key, newer) -> {
+                if (newer == null) {
+                    return change;
+                }
+                if (change.likedAt() != null && newer.unlike()) {
+                    // the unlike came while this like was flushing, and now no delete will read its time
+                    trendingIndex.unlike(like.getFilmId(), change.likedAt());
+                }
+                return change.then(newer);
+            }));
+            throw e;
+        } finally {
+            flushing.clear();
+        }
+        unliked.forEach((like, likedAt) -> trendingIndex.unlike(like.getFilmId(), likedAt));
+        log.debug("Flushed {} like changes", count);
+    }
+
+    private Change merge(FilmLike like, Change change) {
+        Change[] older = new Change[1];
+        pending.compute(like, (key, pendingChange) -> {
+            older[0] = pendingChange;
+            return pendingChange == null ? change : pendingChange.then(change);
+        });
+        return older[0];
+    }
+
+    private void flushIfFull() {
+        int size = pending.size();
+        if (size >= properties.getMaxPending()) {
+            flushQuietly();
+        } else if (size >= properties.getFlushSize() && scheduler != null
+                && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush like changes, {} are still pending", pending.size(), e);
+        }
+    }
+
+    /**
+     * Writes the changes and returns the time of each deleted row that had one.
+     */
+    private Map<FilmLike, Long> write(Map<FilmLike, Change> changes) {
+        List<Object[]> unlikes = new ArrayList<>();
+        Map<FilmLike, Long> likes = new HashMap<>();
+        changes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(BY_KEY))
+                .forEach(entry -> {
+                    if (entry.getValue().unlike()) {
+                        unlikes.add(new Object[]{entry.getKey().getFilmId(), entry.getKey().getUserId()});
+                    }
+                    if (entry.getValue().likedAt() != null) {
+                        likes.put(entry.getKey(), entry.getValue().likedAt());
+                    }
+                });
+        Map<Long, Long> likeCountDeltas = new HashMap<>();
+        Map<FilmLike, Long> unliked = new HashMap<>();
+
+        // unlikes go first, so a pair unliked and liked again gets a new row with the time of the later like
+        for (int from = 0; from < unlikes.size(); from += MERGE_CHUNK_SIZE) {
+            jdbc.query("select film_id, user_id, liked_at from old table (delete from films_likes " +
+                            "where (film_id, user_id) in (:rows))",
+                    new MapSqlParameterSource("rows", unlikes.subList(from, Math.min(from + MERGE_CHUNK_SIZE,
+                            unlikes.size()))),
+                    (RowCallbackHandler) rs -> {
+                        long filmId = rs.getLong("film_id");
+                        likeCountDeltas.merge(filmId, -1L, Long::sum);
+                        Timestamp likedAt = rs.getTimestamp("liked_at");
+                        if (likedAt != null) {
+                            unliked.put(new FilmLike(filmId, rs.getLong("user_id")), likedAt.getTime());
+                        }
+                    });
+        }
+
+        for (FilmLike like : insertAbsent(jdbc, likes)) {
+            likeCountDeltas.merge(like.getFilmId(), 1L, Long::sum);
+        }
+
+        likeCountDeltas.values().removeIf(delta -> delta == 0);
+        jdbc.batchUpdate("update films set like_count = like_count + :cnt where id = :film_id",
+                likeCountDeltas.entrySet().stream()
+                        .map(entry -> new MapSqlParameterSource()
+                                .addValue("film_id", entry.getKey())
+                                .addValue("cnt", entry.getValue()))
+                        .toArray(MapSqlParameterSource[]::new));
+        return unliked;
+    }
+
+    /**
+     * Inserts the likes that have no row yet, each made at the time it is mapped to, and returns those inserted.
+     * {@code merge ... key} waits for a concurrent insert of the same pair and then finds its row instead of failing
+     * on the primary key; the rows it finds keep their time.
+     */
+    static Set<FilmLike> insertAbsent(NamedParameterJdbcOperations jdbc, Map<FilmLike, Long> likedAt) {
+        // pairs are merged in key order, so concurrent batches lock their rows in the same order
+        List<Object[]> rows = likedAt.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(BY_KEY))
+                .map(entry -> new Object[]{entry.getKey().getFilmId(), entry.getKey().getUserId(),
+                        new Timestamp(entry.getValue())})
+                .toList();
+        Map<FilmLike, Timestamp> existing = new HashMap<>();
+        for (int from = 0; from < rows.size(); from += MERGE_CHUNK_SIZE) {
+            jdbc.query("select film_id, user_id, liked_at from old table (merge into films_likes(film_id, user_id, " +
+                            "liked_at) key(film_id, user_id) values :rows)",
+                    new MapSqlParameterSource("rows", rows.subList(from, Math.min(from + MERGE_CHUNK_SIZE,
+                            rows.size()))),
+                    (RowCallbackHandler) rs -> existing.put(new FilmLike(rs.getLong("film_id"),
+                            rs.getLong("user_id")), rs.getTimestamp("liked_at")));
+        }
+        if (!existing.isEmpty()) {
+            jdbc.batchUpdate("update films_likes set liked_at = :liked_at where film_id = :film_id " +
+                    "and user_id = :user_id", existing.entrySet().stream()
+                    .map(entry -> toParams(entry.getKey()).addValue("liked_at", entry.getValue()))
+                    .toArray(MapSqlParameterSource[]::new));
+        }
+
+        Set<FilmLike> inserted = new HashSet<>(likedAt.keySet());
+        inserted.removeAll(existing.keySet());
+        return inserted;
+    }
+
+    private static MapSqlParameterSource toParams(FilmLike like) {
+        return new MapSqlParameterSource()
+                .addValue("film_id", like.getFilmId())
+                .addValue("user_id", like.getUserId());
+    }
+
+    /**
+     * Net change of one pair: remove its row if {@code unlike} is set, then insert one made at {@code likedAt}
+     * unless it is null.
+     */
+    private record Change(boolean unlike, Long likedAt) {
+
+        Change then(Change newer) {
+            Change combined = likedAt != null && newer.unlike()
+                    ? new Change(unlike, newer.likedAt())
+                    : new Change(unlike || newer.unlike(), likedAt != null ? likedAt : newer.likedAt());
+            return combined.unlike() || combined.likedAt() != null ? combined : null;
+        }
+    }
+}
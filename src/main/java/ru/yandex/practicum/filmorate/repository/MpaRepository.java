@@ -18,13 +18,12 @@ public class MpaRepository {
     private final MpaRowMapper mpaRowMapper;
 
     public boolean exists(Integer id) {
-        String query = "select count(*) from mpa where id = :id";
+        String query = "select exists(select 1 from mpa where id = :id)";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("id", id);
 
-        Integer count = jdbc.queryForObject(query, params, Integer.class);
-        return count != null && count > 0;
+        return Boolean.TRUE.equals(jdbc.queryForObject(query, params, Boolean.class));
     }
 
     public List<Mpa> getAll() {
@@ -34,14 +33,10 @@ public class MpaRepository {
 
     public Optional<Mpa> getById(Integer id) {
         String query = "select * from mpa where id = :id";
-        if (!exists(id)) {
-            return Optional.empty();
-        }
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("id", id);
 
-        Mpa mpa = jdbc.query(query, params, mpaRowMapper).getFirst();
-        return Optional.of(mpa);
+        return jdbc.query(query, params, mpaRowMapper).stream().findFirst();
     }
 }
@@ -1,49 +1,121 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLog;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventType;
+import ru.yandex.practicum.filmorate.index.FriendshipIndex;
 import ru.yandex.practicum.filmorate.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDegree;
+import ru.yandex.practicum.filmorate.model.Versioned;
 
+import java.sql.PreparedStatement;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
+@Timed("filmorate.repository")
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.engine", havingValue = "jdbc", matchIfMissing = true)
 public class UserRepository implements UserStorage {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final Comparator<Friendship> BY_KEY = Comparator.comparing(Friendship::getUserId)
+            .thenComparing(Friendship::getFriendId);
+
     private final NamedParameterJdbcOperations jdbc;
     private final UserRowMapper userRowMapper;
+    private final FriendshipIndex friendshipIndex;
+    private final EdgeEventLog edgeEventLog;
+    private final ChangeFeed changeFeed;
+
+    @Override
+    @PostConstruct
+    public void rebuildIndexes() {
+        AdjacencyCollector collector = new AdjacencyCollector("user_id", "friend_id");
+        jdbc.getJdbcOperations().query("select user_id, friend_id from users_friends order by user_id, friend_id",
+                collector);
+        friendshipIndex.rebuild(collector.getAdjacency());
+    }
 
     @Override
     public boolean exists(Long id) {
-        String query = "select count(*) from users where id = :id";
+        String query = "select exists(select 1 from users where id = :id)";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("id", id);
 
-        Integer count = jdbc.queryForObject(query, params, Integer.class);
-        return count != null && count > 0;
+        return Boolean.TRUE.equals(jdbc.queryForObject(query, params, Boolean.class));
+    }
+
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        Set<Long> existingIds = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existingIds;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("ids", ids);
+
+        jdbc.query("select id from users where id in (:ids)", params,
+                (RowCallbackHandler) rs -> existingIds.add(rs.getLong("id")));
+        return existingIds;
     }
 
     @Override
     public Optional<User> getById(Long id) {
+        return getVersionedById(id).map(Versioned::getValue);
+    }
+
+    @Override
+    public Optional<Versioned<User>> getVersionedById(Long id) {
         String query = "select * from users where id = :id";
-        if (!exists(id)) {
-            return Optional.empty();
-        }
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("id", id);
 
-        User user = jdbc.query(query, params, userRowMapper).getFirst();
-        return Optional.of(user);
+        return jdbc.query(query, params,
+                        (rs, rowNum) -> new Versioned<>(userRowMapper.mapRow(rs, rowNum), rs.getLong("version")))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<Long> getVersion(Long id) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("id", id);
+
+        return jdbc.queryForList("select version from users where id = :id", params, Long.class).stream()
+                .findFirst();
     }
 
     @Override
@@ -52,6 +124,26 @@ public class UserRepository implements UserStorage {
         return jdbc.query(query, userRowMapper);
     }
 
+    @Override
+    public List<User> getPage(Long afterId, Integer size) {
+        String query = "select * from users where id > :after_id order by id limit :size";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("after_id", afterId);
+        params.addValue("size", size);
+
+        return jdbc.query(query, params, userRowMapper);
+    }
+
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        jdbc.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement("select * from users order by id");
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(userRowMapper.mapRow(rs, rs.getRow())));
+    }
+
     @Override
     public User save(User user) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
@@ -68,12 +160,23 @@ public class UserRepository implements UserStorage {
                 "values(:email, :login, :name, :birthday)", params, keyHolder, new String[]{"id"});
 
         user.setId(keyHolder.getKeyAs(Long.class));
+        user.setName(userName);
+        changeFeed.publish(ChangeType.USER_CREATED, user.getId(), null);
         log.debug("user created");
         return user;
     }
 
     @Override
-    public User update(User user) {
+    public Optional<User> update(User user) {
+        return updateUser(user, null);
+    }
+
+    @Override
+    public Optional<User> update(User user, long expectedVersion) {
+        return updateUser(user, expectedVersion);
+    }
+
+    private Optional<User> updateUser(User user, Long expectedVersion) {
         MapSqlParameterSource params = new MapSqlParameterSource();
 
         String userName = (user.getName() == null || user.getName().isBlank()) ? user.getLogin() : user.getName();
@@ -83,67 +186,140 @@ public class UserRepository implements UserStorage {
         params.addValue("name", userName);
         params.addValue("birthday", user.getBirthday());
         params.addValue("id", user.getId());
+        params.addValue("version", expectedVersion);
+
+        int cnt = jdbc.update("update users set " +
+                "email = :email, login = :login, name = :name, birthday = :birthday, version = version + 1 " +
+                "where id = :id" + (expectedVersion == null ? "" : " and version = :version"), params);
+        if (cnt == 0) {
+            if (expectedVersion != null && exists(user.getId())) {
+                throw new OptimisticLockingFailureException("User " + user.getId() +
+                        " has been modified since version " + expectedVersion);
+            }
+            return Optional.empty();
+        }
 
-        jdbc.update("update users set " +
-                "email = :email, login = :login, name = :name, birthday = :birthday " +
-                "where id = :id", params);
-
+        changeFeed.publish(ChangeType.USER_UPDATED, user.getId(), null);
         log.debug("user updated");
-        return getById(user.getId()).orElse(null);
+        return getById(user.getId());
     }
 
     @Override
+    @Transactional
     public void addFriend(Long userId, Long friendId) {
-        MapSqlParameterSource params = new MapSqlParameterSource();
-
-        params.addValue("user_id", userId);
-        params.addValue("friend_id", friendId);
-
-        jdbc.update("insert into users_friends(user_id, friend_id) values(:user_id, :friend_id)",
-                params);
-        log.debug("User with id {} was added to user's (id={}) friend list", friendId, userId);
+        addFriends(List.of(new Friendship(userId, friendId)));
     }
 
     @Override
-    public void removeFriend(Long userId, Long friendId) {
+    public boolean removeFriend(Long userId, Long friendId) {
         MapSqlParameterSource params = new MapSqlParameterSource();
 
         params.addValue("user_id", userId);
         params.addValue("friend_id", friendId);
 
-        jdbc.update("delete from users_friends where user_id = :user_id and friend_id = :friend_id",
+        int cnt = jdbc.update("delete from users_friends where user_id = :user_id and friend_id = :friend_id",
                 params);
+        if (cnt > 0) {
+            AfterCommit.run(() -> friendshipIndex.remove(userId, friendId));
+            edgeEventLog.record(EdgeEventType.FRIEND_REMOVED, userId, friendId);
+            changeFeed.publish(ChangeType.FRIEND_REMOVED, userId, friendId);
+        }
         log.debug("Friend with id {} was removed from user with id {}", friendId, userId);
+        return cnt > 0;
+    }
+
+    /**
+     * Adds the friendships that are not stored yet. {@code merge ... key} waits for a concurrent insert of the same
+     * pair and then finds its row instead of failing on the primary key, and the rows it finds are the ones that
+     * existed; a pair repeated in the batch is only added by its first occurrence.
+     */
+    @Override
+    @Transactional
+    public boolean[] addFriends(List<Friendship> friendships) {
+        // pairs are merged in key order, so concurrent batches lock their rows in the same order
+        SortedSet<Friendship> requested = new TreeSet<>(BY_KEY);
+        requested.addAll(friendships);
+        List<Object[]> rows = requested.stream()
+                .map(friendship -> new Object[]{friendship.getUserId(), friendship.getFriendId()})
+                .toList();
+        Set<Friendship> existing = new HashSet<>();
+        for (int from = 0; from < rows.size(); from += LikeWriteBuffer.MERGE_CHUNK_SIZE) {
+            jdbc.query("select user_id, friend_id from old table (merge into users_friends(user_id, friend_id) " +
+                            "key(user_id, friend_id) values :rows)",
+                    new MapSqlParameterSource("rows", rows.subList(from,
+                            Math.min(from + LikeWriteBuffer.MERGE_CHUNK_SIZE, rows.size()))),
+                    (RowCallbackHandler) rs -> existing.add(new Friendship(rs.getLong("user_id"),
+                            rs.getLong("friend_id"))));
+        }
+
+        boolean[] added = new boolean[friendships.size()];
+        for (int i = 0; i < added.length; i++) {
+            Friendship friendship = friendships.get(i);
+            // adding it to the existing ones marks its later occurrences as already there
+            added[i] = existing.add(friendship);
+            if (added[i]) {
+                AfterCommit.run(() -> friendshipIndex.add(friendship.getUserId(), friendship.getFriendId()));
+                edgeEventLog.record(EdgeEventType.FRIEND_ADDED, friendship.getUserId(), friendship.getFriendId());
+                changeFeed.publish(ChangeType.FRIEND_ADDED, friendship.getUserId(), friendship.getFriendId());
+            }
+        }
+        log.debug("Batch of {} friendships was processed", friendships.size());
+        return added;
     }
 
     @Override
     public List<User> getFriendsByUserId(Long id) {
+        return getVersionedFriendsByUserId(id).getValue();
+    }
+
+    @Override
+    public Versioned<List<User>> getVersionedFriendsByUserId(Long id) {
         String query = "select u.* from users_friends uf " +
                 "inner join users u on u.id = uf.friend_id " +
-                "where uf.user_id = :id";
+                "where uf.user_id = :id " +
+                "order by uf.friend_id";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("id", id);
 
-        return jdbc.query(query, params, userRowMapper);
+        Map<Long, Long> versions = new HashMap<>();
+        List<User> friends = jdbc.query(query, params, (rs, rowNum) -> {
+            User friend = userRowMapper.mapRow(rs, rowNum);
+            versions.put(friend.getId(), rs.getLong("version"));
+            return friend;
+        });
+        return new Versioned<>(friends, VersionStamps.of(friends.stream().map(User::getId).toList(), versions::get));
     }
 
     @Override
     public List<User> getMutualFriends(Long id, Long otherId) {
-        String query = "select u.* " +
-                "from users u " +
-                "where exists (" +
-                "select uf.friend_id, count(uf.user_id) " +
-                "from users_friends uf " +
-                "where (uf.user_id = :id OR uf.user_id = :other_id) " +
-                "and uf.friend_id = u.id " +
-                "group by uf.friend_id " +
-                "having count(uf.user_id) > 1)";
+        return getByIds(Arrays.stream(friendshipIndex.getMutualFriendIds(id, otherId)).boxed().toList());
+    }
 
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("id", id);
-        params.addValue("other_id", otherId);
+    @Override
+    public List<User> getFriendSuggestions(Long id, Integer limit) {
+        return getByIds(friendshipIndex.getSuggestedFriendIds(id, limit));
+    }
 
-        return jdbc.query(query, params, userRowMapper);
+    @Override
+    public UserDegree getDegree(Long id) {
+        return new UserDegree(id, friendshipIndex.getFriendCount(id), friendshipIndex.getFollowerCount(id));
+    }
+
+    private List<User> getByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("ids", ids);
+
+        Map<Long, User> usersById = jdbc.query("select * from users where id in (:ids)", params, userRowMapper)
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 }
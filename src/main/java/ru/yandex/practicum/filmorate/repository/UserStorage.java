@@ -1,28 +1,61 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDegree;
+import ru.yandex.practicum.filmorate.model.Versioned;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
     boolean exists(Long id);
 
+    Set<Long> getExistingIds(Collection<Long> ids);
+
     Optional<User> getById(Long id);
 
+    Optional<Long> getVersion(Long id);
+
+    /**
+     * Returns the user together with the version of the same row, so a tag built from it matches the body.
+     */
+    Optional<Versioned<User>> getVersionedById(Long id);
+
     Collection<User> getAll();
 
+    List<User> getPage(Long afterId, Integer size);
+
+    void streamAll(Consumer<User> consumer);
+
     User save(User user);
 
-    User update(User user);
+    Optional<User> update(User user);
+
+    Optional<User> update(User user, long expectedVersion);
 
     void addFriend(Long userId, Long friendId);
 
-    void removeFriend(Long userId, Long friendId);
+    boolean removeFriend(Long userId, Long friendId);
+
+    boolean[] addFriends(List<Friendship> friendships);
 
     List<User> getFriendsByUserId(Long id);
 
+    /**
+     * Returns the friends together with a stamp of the ids and versions of exactly those rows.
+     */
+    Versioned<List<User>> getVersionedFriendsByUserId(Long id);
+
     List<User> getMutualFriends(Long id, Long otherId);
+
+    List<User> getFriendSuggestions(Long id, Integer limit);
+
+    UserDegree getDegree(Long id);
+
+    void rebuildIndexes();
 }
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+public final class VersionStamps {
+
+    public static final long MISSING = -1;
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private VersionStamps() {
+    }
+
+    static long of(NamedParameterJdbcOperations jdbc, String table, List<Long> ids) {
+        Map<Long, Long> versions = new HashMap<>();
+        if (!ids.isEmpty()) {
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            params.addValue("ids", ids);
+            jdbc.query("select id, version from " + table + " where id in (:ids)", params,
+                    (RowCallbackHandler) rs -> versions.put(rs.getLong("id"), rs.getLong("version")));
+        }
+        return of(ids, id -> versions.getOrDefault(id, MISSING));
+    }
+
+    public static long of(List<Long> ids, ToLongFunction<Long> versions) {
+        long stamp = ids.size();
+        for (Long id : ids) {
+            stamp = stamp * MULTIPLIER + id;
+            stamp = stamp * MULTIPLIER + versions.applyAsLong(id);
+        }
+        return stamp;
+    }
+}
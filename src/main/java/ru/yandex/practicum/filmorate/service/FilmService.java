@@ -1,23 +1,48 @@
 package ru.yandex.practicum.filmorate.service;
 
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Versioned;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmService {
 
     Film getFilmById(Long id);
 
+    Versioned<Film> getVersionedFilm(Long id);
+
     Collection<Film> getFilms();
 
+    List<Film> getFilms(Long afterId, Integer size);
+
+    void streamFilms(Consumer<Film> consumer);
+
     Film createFilm(Film film);
 
     Film updateFilm(Film film);
 
+    Film updateFilm(Film film, long expectedVersion);
+
     void addLike(Long id, Long userId);
 
     void removeLike(Long id, Long userId);
 
-    List<Film> getMostPopularFilms(Integer limit);
+    List<BatchItemResult> addLikes(List<FilmLike> likes);
+
+    List<Film> getMostPopularFilms(Integer limit, Integer genreId, Integer year);
+
+    long getMostPopularFilmsVersion(Integer limit, Integer genreId, Integer year);
+
+    FilmFacets getFacets();
+
+    List<Film> getTrendingFilms(String window, Integer limit);
+
+    List<Film> getRecommendations(Long userId, Integer limit);
+
+    List<Film> searchFilms(String query, List<String> by, Integer limit);
 }
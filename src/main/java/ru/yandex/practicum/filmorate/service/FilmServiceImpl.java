@@ -2,22 +2,40 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import ru.yandex.practicum.filmorate.cache.GenreCache;
+import ru.yandex.practicum.filmorate.cache.MpaCache;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.TrendingProperties;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.BatchItemStatus;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Versioned;
 import ru.yandex.practicum.filmorate.repository.FilmStorage;
-import ru.yandex.practicum.filmorate.repository.GenreRepository;
-import ru.yandex.practicum.filmorate.repository.MpaRepository;
 import ru.yandex.practicum.filmorate.repository.UserStorage;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -27,11 +45,15 @@ public class FilmServiceImpl implements FilmService {
     public static final int MAX_AVAILABLE_DESCRIPTION_LENGTH = 200;
     public static final LocalDate EARLIEST_AVAILABLE_RELEASE_DATE = LocalDate.of(1895, Month.DECEMBER, 28);
     public static final Integer GET_FIRST_FILMS_LIMIT = 10;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 10000;
 
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
-    private final MpaRepository mpaRepository;
-    private final GenreRepository genreRepository;
+    private final MpaCache mpaCache;
+    private final GenreCache genreCache;
+    private final TrendingProperties trendingProperties;
 
     @Override
     public Film getFilmById(Long id) {
@@ -39,11 +61,31 @@ public class FilmServiceImpl implements FilmService {
                 .orElseThrow(() -> new NotFoundException("Film not found with id = " + id));
     }
 
+    @Override
+    public Versioned<Film> getVersionedFilm(Long id) {
+        return filmStorage.getVersionedById(id)
+                .orElseThrow(() -> new NotFoundException("Film not found with id = " + id));
+    }
+
     @Override
     public Collection<Film> getFilms() {
         return filmStorage.getAll();
     }
 
+    @Override
+    public List<Film> getFilms(Long afterId, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new ValidationException("Size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.getPage(afterId == null ? 0 : afterId, pageSize);
+    }
+
+    @Override
+    public void streamFilms(Consumer<Film> consumer) {
+        filmStorage.streamAll(consumer);
+    }
+
     @Override
     public Film createFilm(Film film) {
         validate(film);
@@ -55,48 +97,219 @@ public class FilmServiceImpl implements FilmService {
         if (film.getId() == null) {
             throw new ValidationException("Id must not be empty");
         }
-        if (!filmStorage.exists(film.getId())) {
-            throw new NotFoundException("Film not found with id = " + film.getId());
+
+        validate(film);
+        return filmStorage.update(film)
+                .orElseThrow(() -> new NotFoundException("Film not found with id = " + film.getId()));
+    }
+
+    @Override
+    public Film updateFilm(Film film, long expectedVersion) {
+        if (film.getId() == null) {
+            throw new ValidationException("Id must not be empty");
         }
 
         validate(film);
-        return filmStorage.update(film);
+        return filmStorage.update(film, expectedVersion)
+                .orElseThrow(() -> new NotFoundException("Film not found with id = " + film.getId()));
     }
 
     @Override
     public void addLike(Long id, Long userId) {
-        if (!filmStorage.exists(id)) {
-            throw new NotFoundException("Film not found with id = " + id);
+        BatchItemResult result = applyLikes(List.of(new FilmLike(id, userId))).getFirst();
+        if (result.getStatus() == BatchItemStatus.NOT_FOUND) {
+            throw new NotFoundException(result.getDescription());
         }
-        if (!userStorage.exists(userId)) {
-            throw new NotFoundException("User not found with id = " + userId);
+    }
+
+    @Override
+    public void removeLike(Long id, Long userId) {
+        if (!filmStorage.removeLike(id, userId)) {
+            checkFilmAndUserExist(id, userId);
+        }
+    }
+
+    @Override
+    public List<BatchItemResult> addLikes(List<FilmLike> likes) {
+        if (likes == null || likes.isEmpty() || likes.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        return applyLikes(likes);
+    }
+
+    /**
+     * Adds the likes in one write, relying on the foreign keys: the films and users are only looked up when it
+     * fails, to leave out the missing ones and retry.
+     */
+    private List<BatchItemResult> applyLikes(List<FilmLike> likes) {
+        BatchItemResult[] results = new BatchItemResult[likes.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < likes.size(); i++) {
+            FilmLike like = likes.get(i);
+            if (like == null || like.getFilmId() == null || like.getUserId() == null) {
+                results[i] = new BatchItemResult(i, BatchItemStatus.INVALID, "Film id and user id must not be empty");
+            } else {
+                validIndexes.add(i);
+            }
+        }
+
+        if (!validIndexes.isEmpty()) {
+            try {
+                storeLikes(likes, validIndexes, results);
+            } catch (DataIntegrityViolationException e) {
+                List<Integer> foundIndexes = excludeMissing(likes, validIndexes, results);
+                if (foundIndexes.size() == validIndexes.size()) {
+                    throw e;
+                }
+                if (!foundIndexes.isEmpty()) {
+                    storeLikes(likes, foundIndexes, results);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void storeLikes(List<FilmLike> likes, List<Integer> indexes, BatchItemResult[] results) {
+        boolean[] added = filmStorage.addLikes(indexes.stream().map(likes::get).toList());
+        for (int i = 0; i < added.length; i++) {
+            int index = indexes.get(i);
+            results[index] = new BatchItemResult(index,
+                    added[i] ? BatchItemStatus.CREATED : BatchItemStatus.ALREADY_EXISTS, null);
+        }
+    }
+
+    // marks the likes of missing films and users as not found and returns the indexes of the others
+    private List<Integer> excludeMissing(List<FilmLike> likes, List<Integer> indexes, BatchItemResult[] results) {
+        Set<Long> requestedFilmIds = indexes.stream()
+                .map(index -> likes.get(index).getFilmId())
+                .collect(Collectors.toSet());
+        Set<Long> requestedUserIds = indexes.stream()
+                .map(index -> likes.get(index).getUserId())
+                .collect(Collectors.toSet());
+        Set<Long> filmIds = filmStorage.getExistingIds(requestedFilmIds);
+        Set<Long> userIds = userStorage.getExistingIds(requestedUserIds);
+
+        List<Integer> foundIndexes = new ArrayList<>();
+        for (int index : indexes) {
+            FilmLike like = likes.get(index);
+            if (!filmIds.contains(like.getFilmId())) {
+                results[index] = new BatchItemResult(index, BatchItemStatus.NOT_FOUND,
+                        "Film not found with id = " + like.getFilmId());
+            } else if (!userIds.contains(like.getUserId())) {
+                results[index] = new BatchItemResult(index, BatchItemStatus.NOT_FOUND,
+                        "User not found with id = " + like.getUserId());
+            } else {
+                foundIndexes.add(index);
+            }
         }
+        return foundIndexes;
+    }
 
-        filmStorage.addLike(id, userId);
+    @Override
+    public List<Film> getMostPopularFilms(Integer limit, Integer genreId, Integer year) {
+        checkGenreExists(genreId);
+        return filmStorage.getMostPopularFilms(resolveLimit(limit), genreId, year);
     }
 
     @Override
-    public void removeLike(Long id, Long userId) {
-        if (!filmStorage.exists(id)) {
-            throw new NotFoundException("Film not found with id = " + id);
+    public long getMostPopularFilmsVersion(Integer limit, Integer genreId, Integer year) {
+        checkGenreExists(genreId);
+        return filmStorage.getMostPopularFilmsVersion(resolveLimit(limit), genreId, year);
+    }
+
+    @Override
+    public FilmFacets getFacets() {
+        return filmStorage.getFacets();
+    }
+
+    @Override
+    public List<Film> getTrendingFilms(String window, Integer limit) {
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid trending window: " + window);
         }
-        if (!userStorage.exists(userId)) {
-            throw new NotFoundException("User not found with id = " + userId);
+        if (!trendingProperties.getWindows().contains(duration)) {
+            throw new ValidationException("Trending window must be one of " + trendingProperties.getWindows().stream()
+                    .map(FilmServiceImpl::formatWindow)
+                    .collect(Collectors.joining(", ")));
         }
+        int resolvedLimit = resolveLimit(limit);
+        if (resolvedLimit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Limit must not be greater than " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.getTrendingFilms(duration, resolvedLimit);
+    }
 
-        filmStorage.removeLike(id, userId);
+    @Override
+    public List<Film> getRecommendations(Long userId, Integer limit) {
+        int resolvedLimit = resolveLimit(limit);
+        if (resolvedLimit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Limit must not be greater than " + MAX_PAGE_SIZE);
+        }
+        List<Film> recommendations = filmStorage.getRecommendations(userId, resolvedLimit);
+        if (recommendations.isEmpty() && !userStorage.exists(userId)) {
+            throw new NotFoundException("User not found with id = " + userId);
+        }
+        return recommendations;
     }
 
     @Override
-    public List<Film> getMostPopularFilms(Integer limit) {
+    public List<Film> searchFilms(String query, List<String> by, Integer limit) {
+        if (!StringUtils.hasText(query)) {
+            throw new ValidationException("Search query must not be empty");
+        }
+        int resolvedLimit = resolveLimit(limit);
+        if (resolvedLimit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Limit must not be greater than " + MAX_PAGE_SIZE);
+        }
+
+        Set<FilmSearchIndex.Field> fields = EnumSet.noneOf(FilmSearchIndex.Field.class);
+        for (String field : by) {
+            try {
+                fields.add(FilmSearchIndex.Field.valueOf(field.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Unknown search field: " + field);
+            }
+        }
+        if (fields.isEmpty()) {
+            throw new ValidationException("At least one search field is required");
+        }
+        return filmStorage.search(query, fields, resolvedLimit);
+    }
+
+    private static String formatWindow(Duration window) {
+        ChronoUnit unit = Stream.of(ChronoUnit.DAYS, ChronoUnit.HOURS, ChronoUnit.MINUTES, ChronoUnit.SECONDS)
+                .filter(candidate -> window.toMillis() % candidate.getDuration().toMillis() == 0)
+                .findFirst()
+                .orElse(ChronoUnit.MILLIS);
+        return DurationStyle.SIMPLE.print(window, unit);
+    }
+
+    private int resolveLimit(Integer limit) {
         if (limit == null) {
-            limit = GET_FIRST_FILMS_LIMIT;
+            return GET_FIRST_FILMS_LIMIT;
         }
         if (limit <= 0) {
             throw new ValidationException("Limit must be empty or greater than zero");
         }
+        return limit;
+    }
 
-        return filmStorage.getMostPopularFilms(limit);
+    private void checkGenreExists(Integer genreId) {
+        if (genreId != null && !genreCache.exists(genreId)) {
+            throw new NotFoundException("Genre not found with id = " + genreId);
+        }
+    }
+
+    private void checkFilmAndUserExist(Long id, Long userId) {
+        if (!filmStorage.exists(id)) {
+            throw new NotFoundException("Film not found with id = " + id);
+        }
+        if (!userStorage.exists(userId)) {
+            throw new NotFoundException("User not found with id = " + userId);
+        }
     }
 
     private void validate(Film film) {
@@ -105,7 +318,7 @@ public class FilmServiceImpl implements FilmService {
                 film.getReleaseDate().isBefore(EARLIEST_AVAILABLE_RELEASE_DATE)) {
             errors.add("Дата релиза не может быть раньше " + EARLIEST_AVAILABLE_RELEASE_DATE);
         }
-        if (!mpaRepository.exists(film.getMpa().getId())) {
+        if (!mpaCache.exists(film.getMpa().getId())) {
             errors.add("Mpa not found with id = " + film.getMpa().getId());
         }
 
@@ -119,9 +332,8 @@ public class FilmServiceImpl implements FilmService {
 
     private void validateGenres(Film film, List<String> errors) {
         if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            List<Integer> existingGenreIds = genreRepository.getAll().stream().map(Genre::getId).toList();
             List<Genre> nonExistingGenreIds = film.getGenres().stream()
-                    .filter(genre -> !existingGenreIds.contains(genre.getId()))
+                    .filter(genre -> !genreCache.exists(genre.getId()))
                     .toList();
 
             if (!nonExistingGenreIds.isEmpty()) {
@@ -2,9 +2,9 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.GenreCache;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.repository.GenreRepository;
 
 import java.util.List;
 
@@ -12,16 +12,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class GenreServiceImpl implements GenreService {
 
-    private final GenreRepository genreRepository;
+    private final GenreCache genreCache;
 
     @Override
     public List<Genre> getAll() {
-        return genreRepository.getAll();
+        return genreCache.getAll();
     }
 
     @Override
     public Genre getById(Integer id) {
-        return genreRepository.getById(id)
+        return genreCache.getById(id)
                 .orElseThrow(() -> new NotFoundException("Genre not found with id = " + id));
     }
 }
@@ -2,9 +2,9 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.MpaCache;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.repository.MpaRepository;
 
 import java.util.List;
 
@@ -12,16 +12,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MpaServiceImpl implements MpaService {
 
-    private final MpaRepository mpaRepository;
+    private final MpaCache mpaCache;
 
     @Override
     public List<Mpa> getMpaAll() {
-        return mpaRepository.getAll();
+        return mpaCache.getAll();
     }
 
     @Override
     public Mpa getMpaById(Integer id) {
-        return mpaRepository.getById(id)
+        return mpaCache.getById(id)
                 .orElseThrow(() -> new NotFoundException("Mpa not found with id = " + id));
     }
 }
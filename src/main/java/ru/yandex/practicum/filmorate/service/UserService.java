@@ -1,24 +1,45 @@
 package ru.yandex.practicum.filmorate.service;
 
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDegree;
+import ru.yandex.practicum.filmorate.model.Versioned;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
     User getUserById(Long id);
 
+    Versioned<User> getVersionedUser(Long id);
+
     Collection<User> getUsers();
 
+    List<User> getUsers(Long afterId, Integer size);
+
+    void streamUsers(Consumer<User> consumer);
+
     User createUser(User user);
 
     User updateUser(User user);
 
+    User updateUser(User user, long expectedVersion);
+
     void addFriend(Long userId, Long friendId);
 
     void removeFriend(Long userId, Long friendId);
 
+    List<BatchItemResult> addFriends(List<Friendship> friendships);
+
     List<User> getFriendsByUserId(Long id);
 
+    Versioned<List<User>> getVersionedFriendsByUserId(Long id);
+
     List<User> getMutualFriends(Long id, Long otherId);
+
+    List<User> getFriendSuggestions(Long id, Integer limit);
+
+    UserDegree getDegree(Long id);
 }
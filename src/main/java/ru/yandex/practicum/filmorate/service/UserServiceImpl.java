@@ -1,19 +1,36 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.BatchItemStatus;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDegree;
+import ru.yandex.practicum.filmorate.model.Versioned;
 import ru.yandex.practicum.filmorate.repository.UserStorage;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 10000;
+    public static final Integer GET_FIRST_SUGGESTIONS_LIMIT = 10;
+
     private final UserStorage userStorage;
 
     @Override
@@ -22,11 +39,31 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new NotFoundException("User not found with id = " + id));
     }
 
+    @Override
+    public Versioned<User> getVersionedUser(Long id) {
+        return userStorage.getVersionedById(id)
+                .orElseThrow(() -> new NotFoundException("User not found with id = " + id));
+    }
+
     @Override
     public Collection<User> getUsers() {
         return userStorage.getAll();
     }
 
+    @Override
+    public List<User> getUsers(Long afterId, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new ValidationException("Size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return userStorage.getPage(afterId == null ? 0 : afterId, pageSize);
+    }
+
+    @Override
+    public void streamUsers(Consumer<User> consumer) {
+        userStorage.streamAll(consumer);
+    }
+
     @Override
     public User createUser(User user) {
         return userStorage.save(user);
@@ -37,51 +74,167 @@ public class UserServiceImpl implements UserService {
         if (user.getId() == null) {
             throw new ValidationException("Id must not be empty");
         }
-        if (!userStorage.exists(user.getId())) {
-            throw new NotFoundException("User not found with id = " + user.getId());
+
+        return userStorage.update(user)
+                .orElseThrow(() -> new NotFoundException("User not found with id = " + user.getId()));
+    }
+
+    @Override
+    public User updateUser(User user, long expectedVersion) {
+        if (user.getId() == null) {
+            throw new ValidationException("Id must not be empty");
         }
 
-        return userStorage.update(user);
+        return userStorage.update(user, expectedVersion)
+                .orElseThrow(() -> new NotFoundException("User not found with id = " + user.getId()));
     }
 
     @Override
     public void addFriend(Long userId, Long friendId) {
-        if (!userStorage.exists(userId)) {
-            throw new NotFoundException("User not found with id = " + userId);
-        }
-        if (!userStorage.exists(friendId)) {
-            throw new NotFoundException("User not found with id = " + friendId);
+        BatchItemResult result = applyFriendships(List.of(new Friendship(userId, friendId))).getFirst();
+        if (result.getStatus() == BatchItemStatus.NOT_FOUND) {
+            throw new NotFoundException(result.getDescription());
         }
-        userStorage.addFriend(userId, friendId);
     }
 
     @Override
     public void removeFriend(Long userId, Long friendId) {
-        if (!userStorage.exists(userId)) {
-            throw new NotFoundException("User not found with id = " + userId);
+        if (!userStorage.removeFriend(userId, friendId)) {
+            checkUsersExist(userId, friendId);
         }
-        if (!userStorage.exists(friendId)) {
-            throw new NotFoundException("User not found with id = " + friendId);
+    }
+
+    @Override
+    public List<BatchItemResult> addFriends(List<Friendship> friendships) {
+        if (friendships == null || friendships.isEmpty() || friendships.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
         }
-        userStorage.removeFriend(userId, friendId);
+        return applyFriendships(friendships);
+    }
+
+    /**
+     * Adds the friendships in one write, relying on the foreign keys: the users are only looked up when it fails,
+     * to leave out the missing ones and retry.
+     */
+    private List<BatchItemResult> applyFriendships(List<Friendship> friendships) {
+        BatchItemResult[] results = new BatchItemResult[friendships.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < friendships.size(); i++) {
+            Friendship friendship = friendships.get(i);
+            if (friendship == null || friendship.getUserId() == null || friendship.getFriendId() == null) {
+                results[i] = new BatchItemResult(i, BatchItemStatus.INVALID,
+                        "User id and friend id must not be empty");
+            } else {
+                validIndexes.add(i);
+            }
+        }
+
+        if (!validIndexes.isEmpty()) {
+            try {
+                storeFriendships(friendships, validIndexes, results);
+            } catch (DataIntegrityViolationException e) {
+                List<Integer> foundIndexes = excludeMissing(friendships, validIndexes, results);
+                if (foundIndexes.size() == validIndexes.size()) {
+                    throw e;
+                }
+                if (!foundIndexes.isEmpty()) {
+                    storeFriendships(friendships, foundIndexes, results);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void storeFriendships(List<Friendship> friendships, List<Integer> indexes, BatchItemResult[] results) {
+        boolean[] added = userStorage.addFriends(indexes.stream().map(friendships::get).toList());
+        for (int i = 0; i < added.length; i++) {
+            int index = indexes.get(i);
+            results[index] = new BatchItemResult(index,
+                    added[i] ? BatchItemStatus.CREATED : BatchItemStatus.ALREADY_EXISTS, null);
+        }
+    }
+
+    // marks the friendships of missing users as not found and returns the indexes of the others
+    private List<Integer> excludeMissing(List<Friendship> friendships, List<Integer> indexes,
+                                         BatchItemResult[] results) {
+        Set<Long> userIds = userStorage.getExistingIds(indexes.stream()
+                .map(friendships::get)
+                .flatMap(friendship -> Stream.of(friendship.getUserId(), friendship.getFriendId()))
+                .collect(Collectors.toSet()));
+
+        List<Integer> foundIndexes = new ArrayList<>();
+        for (int index : indexes) {
+            Friendship friendship = friendships.get(index);
+            if (!userIds.contains(friendship.getUserId())) {
+                results[index] = new BatchItemResult(index, BatchItemStatus.NOT_FOUND,
+                        "User not found with id = " + friendship.getUserId());
+            } else if (!userIds.contains(friendship.getFriendId())) {
+                results[index] = new BatchItemResult(index, BatchItemStatus.NOT_FOUND,
+                        "User not found with id = " + friendship.getFriendId());
+            } else {
+                foundIndexes.add(index);
+            }
+        }
+        return foundIndexes;
     }
 
     @Override
     public List<User> getFriendsByUserId(Long id) {
-        if (!userStorage.exists(id)) {
-            throw new NotFoundException("User not found with id = " + id);
+        List<User> friends = userStorage.getFriendsByUserId(id);
+        if (friends.isEmpty()) {
+            checkUsersExist(id);
+        }
+        return friends;
+    }
+
+    @Override
+    public Versioned<List<User>> getVersionedFriendsByUserId(Long id) {
+        Versioned<List<User>> friends = userStorage.getVersionedFriendsByUserId(id);
+        if (friends.getValue().isEmpty()) {
+            checkUsersExist(id);
         }
-        return userStorage.getFriendsByUserId(id);
+        return friends;
     }
 
     @Override
     public List<User> getMutualFriends(Long id, Long otherId) {
-        if (!userStorage.exists(id)) {
-            throw new NotFoundException("User not found with id = " + id);
+        List<User> mutualFriends = userStorage.getMutualFriends(id, otherId);
+        if (mutualFriends.isEmpty()) {
+            checkUsersExist(id, otherId);
         }
-        if (!userStorage.exists(otherId)) {
-            throw new NotFoundException("User not found with id = " + otherId);
+        return mutualFriends;
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(Long id, Integer limit) {
+        if (limit == null) {
+            limit = GET_FIRST_SUGGESTIONS_LIMIT;
+        }
+        if (limit <= 0) {
+            throw new ValidationException("Limit must be empty or greater than zero");
+        }
+
+        List<User> suggestions = userStorage.getFriendSuggestions(id, limit);
+        if (suggestions.isEmpty()) {
+            checkUsersExist(id);
+        }
+        return suggestions;
+    }
+
+    @Override
+    public UserDegree getDegree(Long id) {
+        UserDegree degree = userStorage.getDegree(id);
+        if (degree.getFriendCount() == 0 && degree.getFollowerCount() == 0) {
+            checkUsersExist(id);
+        }
+        return degree;
+    }
+
+    private void checkUsersExist(Long... ids) {
+        for (Long id : ids) {
+            if (!userStorage.exists(id)) {
+                throw new NotFoundException("User not found with id = " + id);
+            }
         }
-        return userStorage.getMutualFriends(id, otherId);
     }
 }
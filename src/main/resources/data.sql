@@ -1,16 +1,16 @@
-insert into mpa(name)
+merge into mpa(id, name) key(id)
 values
-    ('G'),
-    ('PG'),
-    ('PG-13'),
-    ('R'),
-    ('NC-17');
+    (1, 'G'),
+    (2, 'PG'),
+    (3, 'PG-13'),
+    (4, 'R'),
+    (5, 'NC-17');
 
-insert into genres(name)
+merge into genres(id, name) key(id)
 values
-    ('Комедия'),
-    ('Драма'),
-    ('Мультфильм'),
-    ('Триллер'),
-    ('Документальный'),
-    ('Боевик');
\ No newline at end of file
+    (1, 'Комедия'),
+    (2, 'Драма'),
+    (3, 'Мультфильм'),
+    (4, 'Триллер'),
+    (5, 'Документальный'),
+    (6, 'Боевик');
\ No newline at end of file
@@ -15,20 +15,33 @@ create table if not exists films (
     release_date        date,
     duration            integer,
     mpa_id              integer not null,
+    like_count          integer default 0 not null,
+    version             bigint default 0 not null,
     foreign key (mpa_id) references mpa(id)
 );
 
+-- the last migration applied below, so the ones that rewrite data run once; older databases start at v1
+create table if not exists schema_version (
+    version             integer not null
+);
+insert into schema_version(version) select 1 where not exists(select 1 from schema_version);
+
+-- v1: materialized like counter
+alter table films add column if not exists like_count integer default 0 not null;
+
 create table if not exists users (
     id                  bigint generated by default as identity primary key,
     email               varchar(50) not null,
     login               varchar(20) not null,
     name                varchar(20),
-    birthday            date
+    birthday            date,
+    version             bigint default 0 not null
 );
 
 create table if not exists films_genres (
     film_id             bigint not null,
     genre_id            integer not null,
+    constraint films_genres_pk primary key (film_id, genre_id),
     foreign key (film_id) references films(id),
     foreign key (genre_id) references genres(id)
 );
@@ -36,6 +49,8 @@ create table if not exists films_genres (
 create table if not exists films_likes (
     film_id             bigint not null,
     user_id             bigint not null,
+    liked_at            timestamp default current_timestamp not null,
+    constraint films_likes_pk primary key (film_id, user_id),
     foreign key (film_id) references films(id),
     foreign key (user_id) references users(id)
 );
@@ -43,6 +58,35 @@ create table if not exists films_likes (
 create table if not exists users_friends (
     user_id             bigint not null,
     friend_id           bigint not null,
+    constraint users_friends_pk primary key (user_id, friend_id),
     foreign key (user_id) references users(id),
     foreign key (friend_id) references users(id)
 );
+
+-- v2: keys for databases created before the relationship tables had primary keys. Duplicates are only removed
+-- below v2: the _rowid_ range is empty otherwise, so later starts don't scan the tables
+delete from films_genres where _rowid_ > (select case when version < 2 then 0 else 9223372036854775807 end
+    from schema_version) and _rowid_ not in (select min(_rowid_) from films_genres group by film_id, genre_id);
+alter table films_genres add constraint if not exists films_genres_pk primary key (film_id, genre_id);
+
+delete from films_likes where _rowid_ > (select case when version < 2 then 0 else 9223372036854775807 end
+    from schema_version) and _rowid_ not in (select min(_rowid_) from films_likes group by film_id, user_id);
+alter table films_likes add constraint if not exists films_likes_pk primary key (film_id, user_id);
+
+delete from users_friends where _rowid_ > (select case when version < 2 then 0 else 9223372036854775807 end
+    from schema_version) and _rowid_ not in (select min(_rowid_) from users_friends group by user_id, friend_id);
+alter table users_friends add constraint if not exists users_friends_pk primary key (user_id, friend_id);
+
+-- v3: row versions for conditional requests
+alter table films add column if not exists version bigint default 0 not null;
+alter table users add column if not exists version bigint default 0 not null;
+
+-- v4: like times for the trending ranking, likes made before it count as made long ago
+alter table films_likes add column if not exists liked_at timestamp default timestamp '1970-01-01 00:00:00' not null;
+alter table films_likes alter column liked_at set default current_timestamp;
+
+create index if not exists films_genres_genre_id_idx on films_genres(genre_id);
+create index if not exists films_likes_user_id_idx on films_likes(user_id);
+create index if not exists users_friends_friend_id_idx on users_friends(friend_id);
+
+update schema_version set version = 4 where version < 4;
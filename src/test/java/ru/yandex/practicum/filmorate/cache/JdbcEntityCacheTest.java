@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.metrics.JdbcStatementCounter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.Versioned;
+import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.StorageTestConfiguration;
+import ru.yandex.practicum.filmorate.repository.UserStorage;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({StorageTestConfiguration.class, CachingFilmStorage.class, FilmCache.class,
+        CachingUserStorage.class, UserCache.class, EntityCacheProperties.class, JdbcStatementCounter.class})
+public class JdbcEntityCacheTest {
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmCache filmCache;
+    private final UserCache userCache;
+    private final JdbcStatementCounter statementCounter;
+
+    @AfterEach
+    public void tearDown() {
+        filmCache.invalidateAll();
+        userCache.invalidateAll();
+    }
+
+    @Test
+    public void getByIdIsServedFromCacheTest() {
+        CacheStats stats = filmCache.getNativeCache().stats();
+        statementCounter.start();
+        Film film = filmStorage.getById(1L).orElseThrow();
+        User user = userStorage.getById(1L).orElseThrow();
+        assertEquals(3, statementCounter.stop());
+
+        statementCounter.start();
+        assertThat(filmStorage.getById(1L)).contains(film);
+        assertThat(userStorage.getById(1L)).contains(user);
+        assertTrue(filmStorage.exists(1L));
+        assertTrue(userStorage.exists(1L));
+        assertEquals(0, statementCounter.stop());
+
+        assertThat(filmStorage.getById(100L)).isEmpty();
+        assertThat(filmStorage.getById(100L)).isEmpty();
+        CacheStats delta = filmCache.getNativeCache().stats().minus(stats);
+        assertEquals(1, delta.hitCount());
+        assertEquals(3, delta.missCount());
+    }
+
+    @Test
+    public void saveWritesThroughAndUpdateEvictsTest() {
+        User user = userStorage.save(new User(null, "new@mail.ru", "newlogin", " ", LocalDate.of(2000, 1, 1)));
+        Film film = filmStorage.getById(2L).orElseThrow();
+        film.setName("updated");
+        filmStorage.update(film);
+        assertFalse(filmCache.contains(2L));
+
+        statementCounter.start();
+        assertThat(userStorage.getById(user.getId()))
+                .get()
+                .extracting(User::getName)
+                .isEqualTo("newlogin");
+        assertEquals(0, statementCounter.stop());
+
+        statementCounter.start();
+        Versioned<Film> updated = filmStorage.getVersionedById(2L).orElseThrow();
+        assertEquals("updated", updated.getValue().getName());
+        assertEquals(1, updated.getVersion());
+        assertEquals(2, statementCounter.stop());
+
+        user.setName("renamed");
+        userStorage.update(user, 0);
+        assertFalse(userCache.contains(user.getId()));
+        assertThat(userStorage.getById(user.getId()))
+                .get()
+                .extracting(User::getName)
+                .isEqualTo("renamed");
+    }
+}
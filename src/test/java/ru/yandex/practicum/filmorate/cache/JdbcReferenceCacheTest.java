@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.mapper.MpaRowMapper;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.MpaRepository;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({MpaRepository.class, MpaRowMapper.class, MpaCache.class,
+        GenreRepository.class, GenreRowMapper.class, GenreCache.class})
+public class JdbcReferenceCacheTest {
+
+    private final MpaCache mpaCache;
+    private final GenreCache genreCache;
+    private final MpaRepository mpaRepository;
+    private final GenreRepository genreRepository;
+
+    @Test
+    public void getMpaByIdTest() {
+        Optional<Mpa> mpaOptional = mpaCache.getById(3);
+
+        assertThat(mpaOptional)
+                .isPresent()
+                .get()
+                .usingRecursiveComparison()
+                .isEqualTo(new Mpa(3, "PG-13"));
+    }
+
+    @Test
+    public void getAllMatchesRepositoryTest() {
+        assertThat(mpaCache.getAll())
+                .usingRecursiveComparison()
+                .isEqualTo(mpaRepository.getAll());
+        assertThat(genreCache.getAll())
+                .usingRecursiveComparison()
+                .isEqualTo(genreRepository.getAll());
+    }
+
+    @Test
+    public void hitAndMissCountTest() {
+        long hits = genreCache.getHitCount();
+        long misses = genreCache.getMissCount();
+
+        assertTrue(genreCache.exists(1));
+        assertTrue(genreCache.exists(6));
+        assertFalse(genreCache.exists(100));
+        assertFalse(genreCache.exists(-1));
+        assertFalse(genreCache.exists(null));
+
+        assertEquals(hits + 2, genreCache.getHitCount());
+        assertEquals(misses + 3, genreCache.getMissCount());
+    }
+
+    @Test
+    public void invalidateReloadsFromDatabaseTest() {
+        Genre genre = new Genre(1, "Комедия");
+        assertThat(genreCache.getById(1)).contains(genre);
+
+        genreCache.invalidate();
+
+        assertThat(genreCache.getById(1)).contains(genre);
+        assertEquals(genreRepository.getAll().size(), genreCache.getAll().size());
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.changefeed;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeFeedTest {
+
+    private static final Duration NO_WAIT = Duration.ZERO;
+
+    private final ChangeFeed changeFeed = new ChangeFeed(properties(4));
+
+    @Test
+    public void readResumesFromSequenceTest() throws InterruptedException {
+        changeFeed.publish(ChangeType.FILM_CREATED, 1, null);
+        changeFeed.publish(ChangeType.LIKE_ADDED, 1, 2L);
+        changeFeed.publish(ChangeType.FRIEND_REMOVED, 3, 4L);
+
+        ChangeBatch batch = changeFeed.read(0, 2, NO_WAIT);
+        assertFalse(batch.reset());
+        assertEquals(List.of("1 FILM_CREATED 1 null", "2 LIKE_ADDED 1 2"), describe(batch.events()));
+
+        batch = changeFeed.read(2, 2, NO_WAIT);
+        assertEquals(List.of("3 FRIEND_REMOVED 3 4"), describe(batch.events()));
+        assertEquals(3, batch.lastSequence());
+
+        assertEquals(List.of(), changeFeed.read(3, 2, NO_WAIT).events());
+    }
+
+    @Test
+    public void subscriberBehindRetentionIsResetTest() throws InterruptedException {
+        for (long id = 1; id <= 6; id++) {
+            changeFeed.publish(ChangeType.USER_UPDATED, id, null);
+        }
+
+        ChangeBatch batch = changeFeed.read(1, 10, NO_WAIT);
+        assertTrue(batch.reset());
+        assertEquals(6, batch.lastSequence());
+
+        batch = changeFeed.read(2, 10, NO_WAIT);
+        assertFalse(batch.reset());
+        assertEquals(List.of(3L, 4L, 5L, 6L), batch.events().stream().map(ChangeEvent::getSequence).toList());
+    }
+
+    @Test
+    public void sequenceFromPreviousRunIsResetTest() throws InterruptedException {
+        changeFeed.publish(ChangeType.FILM_UPDATED, 1, null);
+
+        ChangeBatch batch = changeFeed.read(100, 10, NO_WAIT);
+        assertTrue(batch.reset());
+        assertEquals(1, batch.lastSequence());
+    }
+
+    @Test
+    public void eventIdFromPreviousRunHasNoSequenceTest() {
+        String eventId = changeFeed.getEventId(3);
+        assertEquals(OptionalLong.of(3), changeFeed.getSequence(eventId));
+
+        ChangeFeed restarted = new ChangeFeed(properties(4));
+        assertEquals(OptionalLong.empty(), restarted.getSequence(eventId));
+        assertEquals(OptionalLong.empty(), changeFeed.getSequence("3"));
+        assertEquals(OptionalLong.empty(), changeFeed.getSequence(eventId + "x"));
+    }
+
+    @Test
+    public void readWaitsForNextChangeTest() throws Exception {
+        CompletableFuture<ChangeBatch> pending = CompletableFuture.supplyAsync(() -> {
+            try {
+                return changeFeed.read(0, 10, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        changeFeed.publish(ChangeType.FRIEND_ADDED, 1, 2L);
+
+        assertEquals(List.of("1 FRIEND_ADDED 1 2"), describe(pending.get(10, TimeUnit.SECONDS).events()));
+    }
+
+    private static ChangeFeedProperties properties(int retention) {
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setRetention(retention);
+        return properties;
+    }
+
+    private static List<String> describe(List<ChangeEvent> events) {
+        return events.stream()
+                .map(event -> event.getSequence() + " " + event.getType() + " " + event.getId() + " "
+                        + event.getRelatedId())
+                .toList();
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EntityTagsTest {
+
+    @Test
+    public void parseVersionTest() {
+        assertEquals(26L, EntityTags.parseVersion("film", 1L, EntityTags.of("film", 1L, 26L)));
+        assertEquals(-1L, EntityTags.parseVersion("user", 7L, " " + EntityTags.of("user", 7L, -1L) + " "));
+        assertNull(EntityTags.parseVersion("film", 1L, null));
+        assertNull(EntityTags.parseVersion("film", 1L, "*"));
+
+        assertThrows(ValidationException.class,
+                () -> EntityTags.parseVersion("film", 1L, EntityTags.of("film", 2L, 0L)));
+        assertThrows(ValidationException.class,
+                () -> EntityTags.parseVersion("film", 1L, "W/" + EntityTags.of("film", 1L, 0L)));
+        assertThrows(ValidationException.class, () -> EntityTags.parseVersion("film", 1L, "\"film-1-\""));
+        assertThrows(ValidationException.class, () -> EntityTags.parseVersion("film", 1L, "\"film-1-xyz\""));
+    }
+}
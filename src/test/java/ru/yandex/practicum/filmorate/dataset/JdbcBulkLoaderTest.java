@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.StorageTestConfiguration;
+import ru.yandex.practicum.filmorate.repository.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({StorageTestConfiguration.class, BulkLoader.class})
+public class JdbcBulkLoaderTest {
+
+    private final BulkLoader bulkLoader;
+    private final FilmStorage filmRepository;
+    private final UserStorage userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void loadTest() {
+        BulkLoadProperties properties = new BulkLoadProperties();
+        properties.setUsers(200);
+        properties.setFilms(100);
+        properties.setLikes(2_000);
+        properties.setFriendships(1_000);
+        properties.setBatchSize(64);
+        long userOffset = maxId("users");
+        long filmOffset = maxId("films");
+
+        bulkLoader.load(properties);
+
+        assertEquals(userOffset + 200, maxId("users"));
+        assertEquals(filmOffset + 100, maxId("films"));
+        assertTrue(count("films_likes") > 0);
+        assertTrue(count("users_friends") > 0);
+
+        List<Film> popularFilms = filmRepository.getMostPopularFilms(5, null, null);
+        assertEquals(5, popularFilms.size());
+        assertEquals(filmOffset + 1, popularFilms.getFirst().getId());
+
+        long indexedFriendships = 0;
+        for (long id = 1; id <= userOffset + 200; id++) {
+            indexedFriendships += userRepository.getDegree(id).getFriendCount();
+        }
+        assertEquals(count("users_friends"), indexedFriendships);
+
+        User user = userRepository.save(new User(null, "new@mail.ru", "newuser", "new",
+                LocalDate.of(2000, 1, 1)));
+        assertEquals(userOffset + 201, user.getId());
+    }
+
+    @Test
+    public void zipfSamplerIsSkewedTest() {
+        ZipfSampler sampler = new ZipfSampler(1000, 1.0);
+        Random random = new Random(1);
+        int[] hits = new int[1001];
+        for (int i = 0; i < 100_000; i++) {
+            hits[sampler.sample(random)]++;
+        }
+
+        assertThat(hits[1]).isGreaterThan(hits[2]);
+        assertThat(hits[2]).isGreaterThan(hits[10]);
+        assertThat(hits[1]).isGreaterThan(100 * Math.max(1, hits[1000]));
+    }
+
+    private long maxId(String table) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+}
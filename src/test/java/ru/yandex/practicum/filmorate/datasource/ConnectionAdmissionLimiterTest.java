@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConnectionAdmissionLimiterTest {
+
+    @Test
+    public void limitsConcurrentConnectionsTest() throws Exception {
+        ConnectionAdmissionProperties properties = new ConnectionAdmissionProperties();
+        properties.setMaxConcurrent(1);
+        properties.setTimeout(Duration.ofMillis(50));
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:admission");
+        DataSource dataSource = (DataSource) new ConnectionAdmissionLimiter(properties)
+                .postProcessAfterInitialization(h2, "dataSource");
+
+        Connection first = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        try (Connection second = dataSource.getConnection()) {
+            assertTrue(second.isValid(1));
+        }
+        try (Connection third = dataSource.getConnection()) {
+            assertTrue(third.isValid(1));
+        }
+    }
+}
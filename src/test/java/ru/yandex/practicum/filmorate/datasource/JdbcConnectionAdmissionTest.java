@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.exception.ErrorHandler;
+import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.StorageTestConfiguration;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FilmServiceImpl;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "filmorate.datasource.admission.max-concurrent=1",
+        "filmorate.datasource.admission.timeout=100ms"})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({StorageTestConfiguration.class, FilmServiceImpl.class, ConnectionAdmissionLimiter.class,
+        ConnectionAdmissionProperties.class})
+public class JdbcConnectionAdmissionTest {
+
+    private final DataSource dataSource;
+    private final FilmStorage filmStorage;
+    private final FilmService filmService;
+
+    @Test
+    public void transactionWithoutAdmittedConnectionIsUnavailableTest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new FilmController(filmService, null))
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+
+        try (Connection ignored = dataSource.getConnection()) {
+            assertThrows(CannotCreateTransactionException.class, () -> filmStorage.addLike(1L, 1L));
+            mockMvc.perform(put("/films/1/like/1"))
+                    .andExpect(status().isServiceUnavailable());
+        }
+    }
+}
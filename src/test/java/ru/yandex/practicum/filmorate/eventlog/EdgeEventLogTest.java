@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.eventlog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EdgeEventLogTest {
+
+    private static final int SEGMENT_RECORDS = 4;
+
+    @TempDir
+    private Path directory;
+
+    private EdgeEventLog edgeEventLog;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        edgeEventLog.close();
+    }
+
+    @Test
+    public void appendAndTailAcrossSegmentsTest() throws IOException {
+        edgeEventLog = open(false);
+        for (long i = 0; i < 10; i++) {
+            assertEquals(i, edgeEventLog.append(i % 2 == 0 ? EdgeEventType.LIKE_ADDED : EdgeEventType.FRIEND_ADDED,
+                    i, i + 100));
+        }
+
+        List<String> events = new ArrayList<>();
+        assertEquals(0, edgeEventLog.replay(0, collect(events)));
+        assertEquals(10, edgeEventLog.flush());
+        assertEquals(10, edgeEventLog.replay(0, collect(events)));
+        assertEquals(10, events.size());
+        assertEquals("0 LIKE_ADDED 0->100", events.getFirst());
+        assertEquals("9 FRIEND_ADDED 9->109", events.getLast());
+
+        events.clear();
+        assertEquals(10, edgeEventLog.replay(7, collect(events)));
+        assertEquals(List.of("7 FRIEND_ADDED 7->107", "8 LIKE_ADDED 8->108", "9 FRIEND_ADDED 9->109"), events);
+
+        events.clear();
+        edgeEventLog.append(EdgeEventType.LIKE_REMOVED, 1, 2);
+        edgeEventLog.flush();
+        assertEquals(11, edgeEventLog.replay(10, collect(events)));
+        assertEquals(List.of("10 LIKE_REMOVED 1->2"), events);
+        assertEquals(11, edgeEventLog.replay(11, collect(events)));
+        assertEquals(11, edgeEventLog.getEndOffset());
+    }
+
+    @Test
+    public void reopenDropsRecordsAfterGapTest() throws Exception {
+        edgeEventLog = open(false);
+        for (long i = 0; i < 6; i++) {
+            edgeEventLog.append(EdgeEventType.FRIEND_REMOVED, i, i);
+        }
+        edgeEventLog.close();
+
+        // record 3 was never published, so records 4 and 5 of the next segment must not survive either
+        try (FileChannel channel = FileChannel.open(directory.resolve(String.format("edges-%020d.seg", 0)),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), 3L * EdgeEventLog.RECORD_SIZE);
+        }
+
+        edgeEventLog = open(false);
+        assertEquals(3, edgeEventLog.getEndOffset());
+        assertEquals(3, edgeEventLog.append(EdgeEventType.LIKE_ADDED, 7, 8));
+        edgeEventLog.flush();
+
+        List<String> events = new ArrayList<>();
+        assertEquals(4, edgeEventLog.replay(0, collect(events)));
+        assertEquals(List.of("0 FRIEND_REMOVED 0->0", "1 FRIEND_REMOVED 1->1", "2 FRIEND_REMOVED 2->2",
+                "3 LIKE_ADDED 7->8"), events);
+    }
+
+    @Test
+    public void syncAppendsReturnOnceDurableTest() throws Exception {
+        edgeEventLog = open(true);
+        int threads = 4;
+        int appendsPerThread = 50;
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                long userId = t;
+                futures.add(executor.submit(() -> {
+                    for (long filmId = 0; filmId < appendsPerThread; filmId++) {
+                        long offset = edgeEventLog.append(EdgeEventType.LIKE_ADDED, userId, filmId);
+                        if (edgeEventLog.getEndOffset() <= offset) {
+                            throw new AssertionError("Offset " + offset + " is not durable yet");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        assertEquals(threads * appendsPerThread, edgeEventLog.getEndOffset());
+    }
+
+    @Test
+    public void failedAppendLeavesNoGapTest() throws Exception {
+        edgeEventLog = open(true);
+        for (long i = 0; i < SEGMENT_RECORDS; i++) {
+            edgeEventLog.append(EdgeEventType.LIKE_ADDED, i, i);
+        }
+
+        // the next segment can't be mapped while a directory takes its place
+        Path nextSegment = directory.resolve(String.format("edges-%020d.seg", 1));
+        Files.createDirectory(nextSegment);
+        assertThrows(UncheckedIOException.class, () -> edgeEventLog.append(EdgeEventType.LIKE_ADDED, 5, 6));
+        Files.delete(nextSegment);
+
+        assertEquals(SEGMENT_RECORDS, edgeEventLog.append(EdgeEventType.LIKE_REMOVED, 7, 8));
+        assertEquals(SEGMENT_RECORDS + 1, edgeEventLog.append(EdgeEventType.FRIEND_ADDED, 9, 10));
+        assertEquals(SEGMENT_RECORDS + 2, edgeEventLog.getEndOffset());
+
+        List<String> events = new ArrayList<>();
+        assertEquals(SEGMENT_RECORDS + 2, edgeEventLog.replay(SEGMENT_RECORDS, collect(events)));
+        assertEquals(List.of("4 LIKE_REMOVED 7->8", "5 FRIEND_ADDED 9->10"), events);
+    }
+
+    @Test
+    public void failedAppendAfterCommitIsLoggedAndDroppedTest() throws Exception {
+        edgeEventLog = open(false);
+        edgeEventLog.close();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            edgeEventLog.record(EdgeEventType.FRIEND_ADDED, 1, 2);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                assertDoesNotThrow(synchronization::afterCommit);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertDoesNotThrow(() -> edgeEventLog.record(EdgeEventType.FRIEND_REMOVED, 1, 2));
+    }
+
+    @Test
+    public void disabledLogIgnoresEventsTest() throws IOException {
+        EdgeEventLogProperties properties = new EdgeEventLogProperties();
+        properties.setEnabled(false);
+        properties.setDirectory(directory);
+        edgeEventLog = new EdgeEventLog(properties);
+        edgeEventLog.start();
+
+        edgeEventLog.record(EdgeEventType.LIKE_ADDED, 1, 2);
+        assertEquals(0, edgeEventLog.getEndOffset());
+        assertThrows(IllegalStateException.class, () -> edgeEventLog.append(EdgeEventType.LIKE_ADDED, 1, 2));
+    }
+
+    private EdgeEventLog open(boolean syncAppends) throws IOException {
+        EdgeEventLogProperties properties = new EdgeEventLogProperties();
+        properties.setDirectory(directory);
+        properties.setSegmentRecords(SEGMENT_RECORDS);
+        properties.setFlushInterval(Duration.ofSeconds(10));
+        properties.setSyncAppends(syncAppends);
+        EdgeEventLog opened = new EdgeEventLog(properties);
+        opened.start();
+        return opened;
+    }
+
+    private static EdgeEventConsumer collect(List<String> events) {
+        return (offset, type, timestamp, sourceId, targetId) ->
+                events.add(offset + " " + type + " " + sourceId + "->" + targetId);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FacetCount;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilmPopularityIndexTest {
+
+    private final FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+
+    @Test
+    public void getTopFilmIdsTest() {
+        popularityIndex.rebuild(films -> Map.of(1L, 3L, 2L, 5L, 3L, 0L, 4L, 3L).forEach((filmId, likeCount) ->
+                films.accept(filmId, likeCount, new int[0], 1, null)));
+
+        assertEquals(List.of(2L, 1L, 4L), popularityIndex.getTopFilmIds(10));
+        assertEquals(List.of(2L, 1L), popularityIndex.getTopFilmIds(2));
+
+        popularityIndex.adjust(4L, 1);
+        popularityIndex.adjust(2L, -5);
+        assertEquals(List.of(4L, 1L), popularityIndex.getTopFilmIds(10));
+        assertEquals(0L, popularityIndex.getLikeCount(2L));
+    }
+
+    @Test
+    public void topFilmIdsByGenreAndYearTest() {
+        popularityIndex.rebuild(films -> {
+            films.accept(1L, 3L, new int[]{1, 2}, 1, LocalDate.of(2001, 1, 1));
+            films.accept(2L, 5L, new int[]{2}, 2, LocalDate.of(2002, 1, 1));
+            films.accept(3L, 0L, new int[]{1}, 1, LocalDate.of(2001, 6, 1));
+            films.accept(4L, 4L, new int[0], 1, LocalDate.of(2001, 12, 31));
+        });
+
+        assertEquals(List.of(1L), popularityIndex.getTopFilmIds(10, 1, null));
+        assertEquals(List.of(2L, 1L), popularityIndex.getTopFilmIds(10, 2, null));
+        assertEquals(List.of(4L, 1L), popularityIndex.getTopFilmIds(10, null, 2001));
+        assertEquals(List.of(1L), popularityIndex.getTopFilmIds(10, 2, 2001));
+        assertEquals(List.of(), popularityIndex.getTopFilmIds(10, 6, null));
+
+        popularityIndex.adjust(3L, 6);
+        popularityIndex.index(1L, new int[]{2, 3}, 2, LocalDate.of(2002, 1, 1));
+        assertEquals(List.of(3L), popularityIndex.getTopFilmIds(10, 1, null));
+        assertEquals(List.of(2L, 1L), popularityIndex.getTopFilmIds(10, 2, null));
+        assertEquals(List.of(1L), popularityIndex.getTopFilmIds(10, 3, 2002));
+        assertEquals(List.of(3L, 4L), popularityIndex.getTopFilmIds(10, null, 2001));
+        assertEquals(List.of(3L, 2L, 4L, 1L), popularityIndex.getTopFilmIds(10));
+    }
+
+    @Test
+    public void facetsTest() {
+        popularityIndex.rebuild(films -> {
+            films.accept(1L, 3L, new int[]{1, 2}, 1, LocalDate.of(2001, 1, 1));
+            films.accept(2L, 0L, new int[]{2}, 2, null);
+        });
+        popularityIndex.adjust(2L, 2);
+        popularityIndex.index(3L, new int[]{1}, 2, LocalDate.of(2001, 5, 1));
+        popularityIndex.adjust(3L, 1);
+        popularityIndex.index(1L, new int[]{2}, 1, LocalDate.of(2001, 1, 1));
+
+        FilmFacets facets = popularityIndex.getFacets(genreId -> "genre" + genreId, mpaId -> "mpa" + mpaId);
+        assertThat(facets.getGenres())
+                .extracting(FacetCount::getId, FacetCount::getName, FacetCount::getFilmCount, FacetCount::getLikeCount)
+                .containsExactly(tuple(1, "genre1", 1L, 1L), tuple(2, "genre2", 2L, 5L));
+        assertThat(facets.getMpa())
+                .extracting(FacetCount::getId, FacetCount::getFilmCount, FacetCount::getLikeCount)
+                .containsExactly(tuple(1, 1L, 3L), tuple(2, 2L, 3L));
+        assertThat(facets.getYears())
+                .extracting(FacetCount::getId, FacetCount::getFilmCount, FacetCount::getLikeCount)
+                .containsExactly(tuple(2001, 2L, 4L));
+    }
+
+    @Test
+    public void concurrentAdjustTest() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (long filmId = 1; filmId <= 100; filmId++) {
+                    popularityIndex.adjust(filmId, filmId);
+                    popularityIndex.adjust(filmId, 1);
+                    popularityIndex.adjust(filmId, -1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Long> topFilmIds = popularityIndex.getTopFilmIds(100);
+        assertEquals(100, topFilmIds.size());
+        for (int i = 0; i < topFilmIds.size(); i++) {
+            long filmId = 100 - i;
+            assertEquals(filmId, topFilmIds.get(i));
+            assertEquals(filmId * 8, popularityIndex.getLikeCount(filmId));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FilmSearchIndexTest {
+
+    private static final Set<FilmSearchIndex.Field> ALL_FIELDS = EnumSet.allOf(FilmSearchIndex.Field.class);
+
+    private final FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex(popularityIndex);
+
+    @Test
+    public void tokenizeTest() {
+        assertArrayEquals(new String[]{"елки", "2", "новогодняя", "комедия"},
+                FilmSearchIndex.tokenize("Ёлки 2: новогодняя комедия, комедия!"));
+        assertArrayEquals(new String[]{"the", "matrix", "1999"}, FilmSearchIndex.tokenize("The Matrix (1999) a"));
+        assertArrayEquals(new String[0], FilmSearchIndex.tokenize(null));
+    }
+
+    @Test
+    public void searchAndRankTest() {
+        searchIndex.rebuild(documents -> {
+            documents.accept(1, "Ёлки", "Новогодняя комедия");
+            documents.accept(2, "Комедия положений", "Фильм о ёлках");
+            documents.accept(3, "The Matrix", "A hacker learns the truth");
+            documents.accept(4, "Matrix Reloaded", null);
+        });
+
+        assertEquals(4, searchIndex.getDocumentCount());
+        assertEquals(List.of(1L), searchIndex.search("елки", ALL_FIELDS, 10));
+        assertEquals(List.of(2L, 1L), searchIndex.search("КОМЕДИЯ", ALL_FIELDS, 10));
+        assertEquals(List.of(1L), searchIndex.search("комедия",
+                EnumSet.of(FilmSearchIndex.Field.DESCRIPTION), 10));
+        assertEquals(List.of(3L), searchIndex.search("matrix truth", ALL_FIELDS, 10));
+        assertEquals(List.of(), searchIndex.search("matrix comedy", ALL_FIELDS, 10));
+        assertEquals(List.of(), searchIndex.search("?!", ALL_FIELDS, 10));
+
+        popularityIndex.adjust(4L, 10);
+        assertEquals(List.of(4L, 3L), searchIndex.search("matrix", ALL_FIELDS, 10));
+        assertEquals(List.of(4L), searchIndex.search("matrix", ALL_FIELDS, 1));
+    }
+
+    @Test
+    public void incrementalUpdateTest() {
+        searchIndex.rebuild(documents -> documents.accept(1, "Brother", "Crime drama"));
+
+        searchIndex.index(2L, "Brother 2", "Crime drama sequel");
+        assertEquals(List.of(1L, 2L), searchIndex.search("brother crime", ALL_FIELDS, 10));
+
+        searchIndex.index(1L, "Брат", "Криминальная драма");
+        assertEquals(List.of(2L), searchIndex.search("brother", ALL_FIELDS, 10));
+        assertEquals(List.of(1L), searchIndex.search("брат", ALL_FIELDS, 10));
+        assertEquals(2, searchIndex.getDocumentCount());
+    }
+
+    @Test
+    public void mostLikedMatchesRankFirstTest() {
+        searchIndex.rebuild(documents -> {
+            for (long filmId = 1; filmId <= 30; filmId++) {
+                documents.accept(filmId, "Common title", filmId % 2 == 0 ? "even" : "odd");
+            }
+        });
+        for (long filmId = 1; filmId <= 25; filmId++) {
+            popularityIndex.adjust(filmId, filmId);
+        }
+
+        assertEquals(List.of(25L, 24L, 23L), searchIndex.search("common", ALL_FIELDS, 3));
+        assertEquals(List.of(24L, 22L), searchIndex.search("common even", ALL_FIELDS, 2));
+        assertEquals(List.of(2L, 1L, 26L, 27L), searchIndex.search("title", ALL_FIELDS, 30).subList(23, 27));
+    }
+}
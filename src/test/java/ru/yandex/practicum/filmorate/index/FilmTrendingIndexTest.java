@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FilmTrendingIndexTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final Duration WEEK = Duration.ofDays(7);
+
+    private final FilmTrendingIndex trendingIndex = new FilmTrendingIndex(properties());
+
+    private static TrendingProperties properties() {
+        TrendingProperties properties = new TrendingProperties();
+        properties.setWindows(List.of(HOUR, WEEK));
+        return properties;
+    }
+
+    @Test
+    public void recentLikesOutweighOldOnesTest() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            trendingIndex.like(1L, now - Duration.ofDays(2).toMillis());
+        }
+        trendingIndex.like(2L, now - Duration.ofMinutes(5).toMillis());
+        trendingIndex.like(3L, now - Duration.ofMinutes(30).toMillis());
+
+        assertEquals(List.of(2L, 3L), trendingIndex.getTopFilmIds(HOUR, 10));
+        assertEquals(List.of(1L, 2L, 3L), trendingIndex.getTopFilmIds(WEEK, 10));
+        assertEquals(List.of(1L), trendingIndex.getTopFilmIds(WEEK, 1));
+    }
+
+    @Test
+    public void likesOlderThanTheHorizonAreLeftOutTest() {
+        long now = System.currentTimeMillis();
+        trendingIndex.like(1L, now - HOUR.multipliedBy(FilmTrendingIndex.HORIZON_WINDOWS + 1).toMillis());
+        trendingIndex.like(2L, now);
+
+        assertEquals(List.of(2L), trendingIndex.getTopFilmIds(HOUR, 10));
+        assertEquals(List.of(2L, 1L), trendingIndex.getTopFilmIds(WEEK, 10));
+        assertEquals(WEEK.multipliedBy(FilmTrendingIndex.HORIZON_WINDOWS), trendingIndex.getHorizon());
+    }
+
+    @Test
+    public void unlikeRemovesTheWeightOfThatLikeTest() {
+        long now = System.currentTimeMillis();
+        long earlier = now - Duration.ofMinutes(20).toMillis();
+        trendingIndex.like(1L, earlier);
+        trendingIndex.like(1L, now);
+        trendingIndex.like(2L, now - Duration.ofMinutes(1).toMillis());
+        assertEquals(List.of(1L, 2L), trendingIndex.getTopFilmIds(HOUR, 10));
+
+        trendingIndex.unlike(1L, now);
+        assertEquals(List.of(2L, 1L), trendingIndex.getTopFilmIds(HOUR, 10));
+        trendingIndex.unlike(1L, earlier);
+        trendingIndex.unlike(3L, now);
+        assertEquals(List.of(2L), trendingIndex.getTopFilmIds(HOUR, 10));
+    }
+
+    @Test
+    public void filmWithAllLikesRemovedDisappearsTest() {
+        long now = System.currentTimeMillis();
+        Random random = new Random(7);
+        List<Long> likedAt = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            likedAt.add(now - (long) (random.nextDouble() * Duration.ofDays(3).toMillis()));
+        }
+        likedAt.forEach(time -> trendingIndex.like(1L, time));
+        trendingIndex.like(2L, now - Duration.ofDays(6).toMillis());
+        assertEquals(List.of(1L, 2L), trendingIndex.getTopFilmIds(WEEK, 10));
+
+        Collections.shuffle(likedAt, random);
+        likedAt.forEach(time -> trendingIndex.unlike(1L, time));
+        assertEquals(List.of(2L), trendingIndex.getTopFilmIds(WEEK, 10));
+        assertEquals(List.of(), trendingIndex.getTopFilmIds(HOUR, 10));
+    }
+
+    @Test
+    public void unlikeOfALikeOutsideTheRebuildDoesNotDropTheFilmTest() {
+        long now = System.currentTimeMillis();
+        long old = now - WEEK.multipliedBy(FilmTrendingIndex.HORIZON_WINDOWS + 1).toMillis();
+        trendingIndex.rebuild(likes -> {
+            likes.accept(1L, old);
+            likes.accept(1L, now);
+        });
+
+        trendingIndex.unlike(1L, old);
+        assertEquals(List.of(1L), trendingIndex.getTopFilmIds(WEEK, 10));
+    }
+
+    @Test
+    public void rebuildRecomputesScoresFromLikeTimesTest() {
+        long now = System.currentTimeMillis();
+        trendingIndex.like(5L, now);
+
+        trendingIndex.rebuild(likes -> {
+            likes.accept(1L, now - Duration.ofMinutes(50).toMillis());
+            likes.accept(2L, now - Duration.ofMinutes(10).toMillis());
+            likes.accept(1L, now - Duration.ofMinutes(40).toMillis());
+            likes.accept(3L, 0);
+        });
+
+        assertEquals(List.of(1L, 2L), trendingIndex.getTopFilmIds(HOUR, 10));
+        assertThrows(IllegalArgumentException.class, () -> trendingIndex.getTopFilmIds(Duration.ofHours(24), 10));
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FriendshipIndexTest {
+
+    private final FriendshipIndex friendshipIndex = new FriendshipIndex();
+
+    @Test
+    public void mutualFriendsTest() {
+        friendshipIndex.rebuild(Map.of(
+                1L, new long[]{5, 2, 3, 9},
+                2L, new long[]{9, 1, 3, 4}));
+
+        assertArrayEquals(new long[]{3, 9}, friendshipIndex.getMutualFriendIds(1L, 2L));
+        assertArrayEquals(new long[0], friendshipIndex.getMutualFriendIds(1L, 7L));
+
+        assertTrue(friendshipIndex.add(1L, 4L));
+        assertFalse(friendshipIndex.add(1L, 4L));
+        assertArrayEquals(new long[]{3, 4, 9}, friendshipIndex.getMutualFriendIds(1L, 2L));
+
+        assertTrue(friendshipIndex.remove(2L, 9L));
+        assertFalse(friendshipIndex.remove(2L, 9L));
+        assertArrayEquals(new long[]{3, 4}, friendshipIndex.getMutualFriendIds(1L, 2L));
+    }
+
+    @Test
+    public void suggestionsAndDegreeTest() {
+        friendshipIndex.add(1L, 2L);
+        friendshipIndex.add(1L, 3L);
+        friendshipIndex.add(2L, 4L);
+        friendshipIndex.add(3L, 4L);
+        friendshipIndex.add(3L, 5L);
+        friendshipIndex.add(3L, 1L);
+        friendshipIndex.add(2L, 3L);
+
+        assertEquals(List.of(4L, 5L), friendshipIndex.getSuggestedFriendIds(1L, 10));
+        assertEquals(List.of(4L), friendshipIndex.getSuggestedFriendIds(1L, 1));
+        assertEquals(List.of(), friendshipIndex.getSuggestedFriendIds(1L, 0));
+
+        friendshipIndex.add(2L, 6L);
+        assertEquals(List.of(4L, 5L), friendshipIndex.getSuggestedFriendIds(1L, 2));
+        assertEquals(List.of(4L, 5L, 6L), friendshipIndex.getSuggestedFriendIds(1L, 10));
+
+        assertEquals(2, friendshipIndex.getFriendCount(1L));
+        assertEquals(2L, friendshipIndex.getFollowerCount(4L));
+        assertEquals(2L, friendshipIndex.getFollowerCount(3L));
+
+        friendshipIndex.remove(2L, 4L);
+        assertEquals(1L, friendshipIndex.getFollowerCount(4L));
+        assertEquals(0L, friendshipIndex.getFollowerCount(7L));
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LikeMatrixTest {
+
+    private final LikeMatrix likeMatrix = new LikeMatrix();
+
+    @Test
+    public void getRecommendedFilmIdsTest() {
+        likeMatrix.rebuild(Map.of(
+                1L, new long[]{3, 1, 2},
+                2L, new long[]{1, 2, 4},
+                3L, new long[]{5, 1},
+                4L, new long[]{6}));
+
+        assertEquals(List.of(4L, 5L), likeMatrix.getRecommendedFilmIds(1L, 10));
+        assertEquals(List.of(4L), likeMatrix.getRecommendedFilmIds(1L, 1));
+        assertEquals(List.of(), likeMatrix.getRecommendedFilmIds(7L, 10));
+        assertEquals(List.of(4L, 5L), likeMatrix.getRecommendedFilmIds(1L, Integer.MAX_VALUE));
+
+        likeMatrix.add(6L, 1L);
+        assertEquals(List.of(4L, 5L), likeMatrix.getRecommendedFilmIds(1L, 10));
+
+        likeMatrix.remove(4L, 2L);
+        assertEquals(List.of(5L), likeMatrix.getRecommendedFilmIds(1L, 10));
+    }
+
+    @Test
+    public void neighboursAreFoundAcrossCandidateRangesTest() {
+        Map<Long, long[]> likes = new HashMap<>();
+        likes.put(1L, new long[]{1, 2, 3});
+        for (long userId = 2; userId <= 1000; userId++) {
+            likes.put(userId, new long[]{userId % 3 + 1, 100 + userId % 7});
+        }
+        likes.put(1001L, new long[]{1, 2, 3, 50});
+        likeMatrix.rebuild(likes);
+
+        List<Long> recommended = likeMatrix.getRecommendedFilmIds(1L, 10);
+        assertEquals(8, recommended.size());
+        assertTrue(recommended.contains(50L));
+    }
+
+    @Test
+    public void incrementalUpdatesMatchRebuildTest() {
+        LikeMatrix rebuilt = new LikeMatrix();
+        rebuilt.rebuild(Map.of(
+                1L, new long[]{1, 2},
+                2L, new long[]{2, 3},
+                3L, new long[]{1, 3, 4}));
+
+        likeMatrix.add(1L, 1L);
+        likeMatrix.add(2L, 1L);
+        likeMatrix.add(2L, 2L);
+        likeMatrix.add(3L, 2L);
+        likeMatrix.add(1L, 3L);
+        likeMatrix.add(3L, 3L);
+        likeMatrix.add(4L, 3L);
+        likeMatrix.add(5L, 3L);
+        likeMatrix.remove(5L, 3L);
+
+        for (long userId = 1; userId <= 3; userId++) {
+            assertEquals(rebuilt.getRecommendedFilmIds(userId, 10), likeMatrix.getRecommendedFilmIds(userId, 10));
+        }
+    }
+
+    @Test
+    public void concurrentLikesAndUnlikesKeepBothDirectionsTest() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < 200; round++) {
+                        for (long userId = 1; userId <= 100; userId++) {
+                            likeMatrix.add(1L, userId);
+                            likeMatrix.remove(1L, userId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // a liker left behind on the film side would outrank the real neighbour and hide its film
+        likeMatrix.add(1L, 1000L);
+        likeMatrix.add(2L, 1000L);
+        likeMatrix.add(1L, 1001L);
+        likeMatrix.add(3L, 1001L);
+        assertEquals(List.of(3L), likeMatrix.getRecommendedFilmIds(1000L, 10));
+    }
+
+    @Test
+    public void largeLikerSetsGrowAndShrinkInPlaceTest() {
+        int likers = AdjacencySet.COMPACT_LIMIT * 2;
+        for (long userId = 1; userId <= likers; userId++) {
+            assertTrue(likeMatrix.add(1L, userId));
+        }
+        assertFalse(likeMatrix.add(1L, 7L));
+        for (long userId = 2; userId <= likers; userId++) {
+            assertTrue(likeMatrix.remove(1L, userId));
+        }
+        assertFalse(likeMatrix.remove(1L, 2L));
+
+        assertTrue(likeMatrix.contains(1L, 1L));
+        likeMatrix.add(2L, 1L);
+        likeMatrix.add(1L, 2L);
+        likeMatrix.add(3L, 2L);
+        assertEquals(List.of(3L), likeMatrix.getRecommendedFilmIds(1L, 10));
+    }
+
+    @Test
+    public void adjacencySetMatchesSortedSetTest() {
+        AdjacencySet set = new AdjacencySet();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            long id = 1 + random.nextInt(AdjacencySet.COMPACT_LIMIT * 3);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), set.remove(id));
+            } else {
+                assertEquals(expected.add(id), set.add(id));
+            }
+        }
+        assertEquals(expected.stream().toList(), Arrays.stream(set.toSortedArray()).boxed().toList());
+
+        while (expected.size() > 10) {
+            long id = expected.pollFirst();
+            assertTrue(set.remove(id));
+            assertFalse(set.contains(id));
+        }
+        assertEquals(expected.stream().toList(), Arrays.stream(set.toSortedArray()).boxed().toList());
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedProperties;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLog;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.TrendingProperties;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.JdbcFilmRepositoryTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "filmorate.storage.engine=memory")
+public class InMemoryFilmStorageTest extends JdbcFilmRepositoryTest {
+
+    @TempDir
+    private static Path directory;
+
+    private final FilmStorage filmStorage;
+    private final MemoryStore store;
+    private final MemoryStorageProperties properties;
+    private final EdgeEventLog edgeEventLog;
+
+    @DynamicPropertySource
+    static void storageProperties(DynamicPropertyRegistry registry) {
+        registry.add("filmorate.storage.memory.directory", () -> directory);
+    }
+
+    @Autowired
+    public InMemoryFilmStorageTest(FilmStorage filmStorage, MemoryStore store, MemoryStorageProperties properties,
+                                   EdgeEventLog edgeEventLog) {
+        super(filmStorage);
+        this.filmStorage = filmStorage;
+        this.store = store;
+        this.properties = properties;
+        this.edgeEventLog = edgeEventLog;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        try {
+            store.reseed();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void restartRecoversSnapshotAndLogTest(@TempDir Path restartedDirectory) throws Exception {
+        filmStorage.addLike(1L, 1L);
+        filmStorage.addLike(1L, 2L);
+        store.checkpoint();
+
+        Film film = filmStorage.getById(2L).orElseThrow();
+        film.setName("Ёлки");
+        filmStorage.update(film);
+        filmStorage.removeLike(1L, 2L);
+        filmStorage.addLike(2L, 3L);
+        film.setId(null);
+        Film saved = filmStorage.save(film);
+
+        try (Stream<Path> files = Files.list(properties.getDirectory())) {
+            for (Path file : files.toList()) {
+                Files.copy(file, restartedDirectory.resolve(file.getFileName()));
+            }
+        }
+        MemoryStorageProperties restartedProperties = new MemoryStorageProperties();
+        restartedProperties.setDirectory(restartedDirectory);
+        FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+        LikeMatrix likeMatrix = new LikeMatrix();
+        FilmSearchIndex searchIndex = new FilmSearchIndex(popularityIndex);
+        FilmTrendingIndex trendingIndex = new FilmTrendingIndex(new TrendingProperties());
+        MemoryStore restarted = new MemoryStore(null, null, popularityIndex, likeMatrix, searchIndex,
+                new FriendshipIndex(), restartedProperties, edgeEventLog, new ChangeFeed(new ChangeFeedProperties()),
+                trendingIndex);
+        restarted.start();
+
+        assertThat(restarted.getFilms()).usingRecursiveComparison().isEqualTo(store.getFilms());
+        assertEquals(saved.getId(), restarted.getFilms().lastKey());
+        assertEquals(1L, restarted.getFilm(2L).version());
+        assertTrue(likeMatrix.contains(1L, 1L));
+        assertFalse(likeMatrix.contains(1L, 2L));
+        assertTrue(likeMatrix.contains(2L, 3L));
+        assertEquals(List.of(1L, 2L), popularityIndex.getTopFilmIds(10));
+        assertEquals(List.of(2L, saved.getId()),
+                searchIndex.search("елки", EnumSet.allOf(FilmSearchIndex.Field.class), 10));
+        assertThat(trendingIndex.getTopFilmIds(Duration.ofHours(1), 10)).containsExactlyInAnyOrder(1L, 2L);
+        restarted.stop();
+    }
+}
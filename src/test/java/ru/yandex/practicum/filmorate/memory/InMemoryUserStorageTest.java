@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.repository.JdbcUserRepositoryTest;
+import ru.yandex.practicum.filmorate.repository.UserStorage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "filmorate.storage.engine=memory")
+public class InMemoryUserStorageTest extends JdbcUserRepositoryTest {
+
+    @TempDir
+    private static Path directory;
+
+    private final MemoryStore store;
+
+    @DynamicPropertySource
+    static void storageProperties(DynamicPropertyRegistry registry) {
+        registry.add("filmorate.storage.memory.directory", () -> directory);
+    }
+
+    @Autowired
+    public InMemoryUserStorageTest(UserStorage userRepository, MemoryStore store) {
+        super(userRepository);
+        this.store = store;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        try {
+            store.reseed();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OperationLogTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void replayDropsTornTailTest() throws IOException {
+        OperationLog operationLog = new OperationLog(directory, false);
+        operationLog.open(0);
+        for (long userId = 1; userId <= 3; userId++) {
+            long id = userId;
+            operationLog.append(EntryType.LIKE_ADDED, buffer -> buffer.putLong(10L).putLong(id));
+        }
+        operationLog.close();
+
+        Path segment = listSegments().getFirst();
+        long validSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(30).putInt(42).putInt(7).flip());
+        }
+
+        List<Long> userIds = new ArrayList<>();
+        long last = new OperationLog(directory, false).replay(1, (type, payload) -> {
+            assertEquals(EntryType.LIKE_ADDED, type);
+            assertEquals(10L, payload.getLong());
+            userIds.add(payload.getLong());
+        });
+
+        assertEquals(3, last);
+        assertEquals(List.of(2L, 3L), userIds);
+        assertEquals(validSize, Files.size(segment));
+    }
+
+    @Test
+    public void rolledOverSegmentsAreDeletedTest() throws IOException {
+        OperationLog operationLog = new OperationLog(directory, false);
+        operationLog.open(0);
+        assertEquals(0, operationLog.rollover());
+
+        operationLog.append(EntryType.FRIEND_ADDED, buffer -> buffer.putLong(1L).putLong(2L));
+        assertEquals(1, operationLog.rollover());
+        operationLog.append(EntryType.FRIEND_REMOVED, buffer -> buffer.putLong(1L).putLong(2L));
+        assertEquals(2, listSegments().size());
+
+        operationLog.deleteSegmentsBefore(2);
+        operationLog.close();
+        assertEquals(1, listSegments().size());
+
+        List<EntryType> types = new ArrayList<>();
+        assertEquals(2, new OperationLog(directory, false).replay(0, (type, payload) -> types.add(type)));
+        assertEquals(List.of(EntryType.FRIEND_REMOVED), types);
+    }
+
+    @Test
+    public void syncCoversEveryEntryAppendedBeforeItTest() throws IOException {
+        OperationLog operationLog = new OperationLog(directory, false);
+        operationLog.open(5);
+        assertEquals(5, operationLog.sync());
+
+        operationLog.append(EntryType.LIKE_ADDED, buffer -> buffer.putLong(1L).putLong(2L));
+        operationLog.append(EntryType.LIKE_REMOVED, buffer -> buffer.putLong(1L).putLong(2L));
+        assertEquals(7, operationLog.sync());
+        assertEquals(7, operationLog.rollover());
+        assertEquals(7, operationLog.sync());
+        operationLog.close();
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
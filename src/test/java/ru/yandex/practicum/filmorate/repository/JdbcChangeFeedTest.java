@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(StorageTestConfiguration.class)
+public class JdbcChangeFeedTest {
+
+    private final FilmStorage filmRepository;
+    private final UserStorage userRepository;
+    private final ChangeFeed changeFeed;
+    private final PlatformTransactionManager transactionManager;
+
+    @Test
+    public void committedChangesArePublishedInOrderTest() throws InterruptedException {
+        long start = changeFeed.getLastSequence();
+
+        Film film = filmRepository.getById(1L).orElseThrow();
+        filmRepository.update(film);
+        filmRepository.addLike(1L, 3L);
+        User user = userRepository.getById(2L).orElseThrow();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.update(user);
+            status.setRollbackOnly();
+        });
+        userRepository.addFriend(2L, 3L);
+        filmRepository.removeLike(1L, 3L);
+        userRepository.removeFriend(2L, 3L);
+        filmRepository.rebuildIndexes();
+        userRepository.rebuildIndexes();
+
+        List<String> changes = changeFeed.read(start, 10, Duration.ZERO).events().stream()
+                .map(JdbcChangeFeedTest::describe)
+                .toList();
+        assertEquals(List.of("FILM_UPDATED 1 null", "LIKE_ADDED 1 3", "FRIEND_ADDED 2 3", "LIKE_REMOVED 1 3",
+                "FRIEND_REMOVED 2 3"), changes);
+    }
+
+    private static String describe(ChangeEvent event) {
+        return event.getType() + " " + event.getId() + " " + event.getRelatedId();
+    }
+}
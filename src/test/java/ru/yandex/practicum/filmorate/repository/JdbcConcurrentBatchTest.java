@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(StorageTestConfiguration.class)
+public class JdbcConcurrentBatchTest {
+
+    private static final int THREADS = 8;
+
+    private final FilmStorage filmRepository;
+    private final UserStorage userRepository;
+
+    @Test
+    public void concurrentBatchesOfTheSameLikesAddEachOnceTest() throws Exception {
+        List<FilmLike> likes = new ArrayList<>();
+        for (long filmId = 1; filmId <= 2; filmId++) {
+            for (long userId = 1; userId <= 3; userId++) {
+                likes.add(new FilmLike(filmId, userId));
+            }
+        }
+
+        List<boolean[]> results = runConcurrently(thread -> {
+            List<FilmLike> batch = new ArrayList<>(likes);
+            Collections.rotate(batch, thread);
+            return filmRepository.addLikes(batch);
+        });
+
+        assertEquals(likes.size(), countAdded(results));
+        assertThat(filmRepository.getMostPopularFilms(10, null, null))
+                .extracting(Film::getId)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void concurrentBatchesOfTheSameFriendshipsAddEachOnceTest() throws Exception {
+        List<Friendship> friendships = List.of(
+                new Friendship(1L, 2L), new Friendship(1L, 3L), new Friendship(2L, 1L),
+                new Friendship(2L, 3L), new Friendship(3L, 1L), new Friendship(3L, 2L));
+
+        List<boolean[]> results = runConcurrently(thread -> {
+            List<Friendship> batch = new ArrayList<>(friendships);
+            Collections.rotate(batch, thread);
+            return userRepository.addFriends(batch);
+        });
+
+        assertEquals(friendships.size(), countAdded(results));
+        assertEquals(2, userRepository.getFriendsByUserId(1L).size());
+        assertEquals(2, userRepository.getFriendsByUserId(3L).size());
+    }
+
+    private static List<boolean[]> runConcurrently(ThreadTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<boolean[]>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                Callable<boolean[]> call = () -> {
+                    start.await();
+                    return task.run(thread);
+                };
+                futures.add(executor.submit(call));
+            }
+            start.countDown();
+            List<boolean[]> results = new ArrayList<>();
+            for (Future<boolean[]> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+
+    private static int countAdded(List<boolean[]> results) {
+        int added = 0;
+        for (boolean[] result : results) {
+            for (boolean value : result) {
+                added += value ? 1 : 0;
+            }
+        }
+        return added;
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        boolean[] run(int thread);
+    }
+}
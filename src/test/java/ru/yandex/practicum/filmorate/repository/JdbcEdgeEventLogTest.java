@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLog;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "filmorate.edge-log.enabled=true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(StorageTestConfiguration.class)
+public class JdbcEdgeEventLogTest {
+
+    @TempDir
+    private static Path directory;
+
+    private final UserStorage userRepository;
+    private final EdgeEventLog edgeEventLog;
+    private final PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void edgeLogProperties(DynamicPropertyRegistry registry) {
+        registry.add("filmorate.edge-log.directory", () -> directory);
+    }
+
+    @Test
+    public void committedFriendshipChangesAreLoggedTest() {
+        long start = edgeEventLog.getEndOffset();
+
+        userRepository.addFriend(1L, 2L);
+        userRepository.addFriend(1L, 2L);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            userRepository.addFriend(1L, 3L);
+            status.setRollbackOnly();
+        });
+        userRepository.rebuildIndexes();
+        userRepository.removeFriend(1L, 2L);
+        edgeEventLog.flush();
+
+        List<String> events = new ArrayList<>();
+        long end = edgeEventLog.replay(start, (offset, type, timestamp, sourceId, targetId) ->
+                events.add(type + " " + sourceId + "->" + targetId));
+        assertEquals(List.of("FRIEND_ADDED 1->2", "FRIEND_REMOVED 1->2"), events);
+        assertEquals(start + 2, end);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(StorageTestConfiguration.class)
+public class JdbcFilmConcurrentUpdateTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 25;
+    private static final List<List<Integer>> GENRE_SETS = List.of(
+            List.of(1, 2), List.of(2, 3, 4), List.of(5), List.of(), List.of(1, 3, 5, 6));
+
+    private final FilmStorage filmRepository;
+
+    @Test
+    public void concurrentUpdatesOfOneFilmAreAtomicTest() throws Exception {
+        long initialVersion = filmRepository.getVersion(2L).orElseThrow();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        int variant = (thread + i) % GENRE_SETS.size();
+                        Film film = getFilm(variant);
+                        Film updated = filmRepository.update(film).orElseThrow();
+                        assertEquals("variant" + variant, updated.getName());
+                        assertEquals(toGenreIds(GENRE_SETS.get(variant)), toGenreIds(updated.getGenres()));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        Film stored = filmRepository.getById(2L).orElseThrow();
+        int variant = Integer.parseInt(stored.getName().substring("variant".length()));
+        assertEquals(toGenreIds(GENRE_SETS.get(variant)), toGenreIds(stored.getGenres()));
+        assertThat(filmRepository.getVersion(2L)).contains(initialVersion + THREADS * UPDATES_PER_THREAD);
+    }
+
+    private static Film getFilm(int variant) {
+        Set<Genre> genres = new LinkedHashSet<>();
+        GENRE_SETS.get(variant).forEach(genreId -> genres.add(new Genre(genreId, null)));
+        return new Film(2L,
+                "variant" + variant,
+                "desc" + variant,
+                LocalDate.of(1982, 1, 12),
+                20,
+                genres,
+                new Mpa(2, null));
+    }
+
+    private static List<Integer> toGenreIds(List<Integer> genreIds) {
+        return genreIds.stream().sorted().toList();
+    }
+
+    private static List<Integer> toGenreIds(Set<Genre> genres) {
+        return genres.stream().map(Genre::getId).toList();
+    }
+}
@@ -6,25 +6,35 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
-import ru.yandex.practicum.filmorate.mapper.FilmRowMapper;
-import ru.yandex.practicum.filmorate.mapper.GenreRowMapper;
-import ru.yandex.practicum.filmorate.mapper.MpaRowMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.FacetCount;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @JdbcTest
 @AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({FilmRepository.class, FilmRowMapper.class,
-        MpaRepository.class, MpaRowMapper.class,
-        GenreRepository.class, GenreRowMapper.class})
+@Import(StorageTestConfiguration.class)
 public class JdbcFilmRepositoryTest {
 
     private final FilmStorage filmRepository;
@@ -130,4 +140,228 @@ public class JdbcFilmRepositoryTest {
                 .usingRecursiveComparison()
                 .isEqualTo(filmForUpdate);
     }
+
+    @Test
+    public void getMostPopularFilmsTest() {
+        filmRepository.addLike(2L, 1L);
+        filmRepository.addLike(2L, 2L);
+        filmRepository.addLike(1L, 3L);
+
+        List<Film> popularFilms = filmRepository.getMostPopularFilms(10, null, null);
+        assertThat(popularFilms)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(getTestFilms().getLast(), getTestFilms().getFirst()));
+
+        filmRepository.removeLike(2L, 1L);
+        filmRepository.removeLike(2L, 2L);
+        popularFilms = filmRepository.getMostPopularFilms(10, null, null);
+        assertThat(popularFilms)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(getTestFilms().getFirst()));
+
+        filmRepository.removeLike(1L, 3L);
+        assertThat(filmRepository.getMostPopularFilms(10, null, null)).isEmpty();
+    }
+
+    @Test
+    public void getPageTest() {
+        List<Film> firstPage = filmRepository.getPage(0L, 1);
+        assertThat(firstPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(getTestFilms().getFirst()));
+
+        List<Film> secondPage = filmRepository.getPage(firstPage.getLast().getId(), 1);
+        assertThat(secondPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(getTestFilms().getLast()));
+
+        assertThat(filmRepository.getPage(secondPage.getLast().getId(), 1)).isEmpty();
+    }
+
+    @Test
+    public void streamAllTest() {
+        List<Film> streamedFilms = new ArrayList<>();
+        filmRepository.streamAll(streamedFilms::add);
+
+        assertThat(streamedFilms)
+                .usingRecursiveComparison()
+                .isEqualTo(getTestFilms());
+    }
+
+    @Test
+    public void duplicateLikeIsIgnoredTest() {
+        filmRepository.addLike(1L, 1L);
+        filmRepository.addLike(1L, 1L);
+        filmRepository.addLike(2L, 2L);
+        filmRepository.addLike(2L, 3L);
+
+        List<Film> popularFilms = filmRepository.getMostPopularFilms(10, null, null);
+        assertThat(popularFilms)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(getTestFilms().getLast(), getTestFilms().getFirst()));
+    }
+
+    @Test
+    public void saveWithRepeatedGenreIdTest() {
+        Film film = getTestFilms().getFirst();
+        film.setGenres(new LinkedHashSet<>(List.of(new Genre(1, null), new Genre(1, "Комедия"))));
+
+        filmRepository.update(film);
+
+        assertThat(filmRepository.getById(1L))
+                .isPresent()
+                .get()
+                .extracting(Film::getGenres)
+                .isEqualTo(Set.of(new Genre(1, "Комедия")));
+    }
+
+    @Test
+    public void addLikesTest() {
+        filmRepository.addLike(1L, 1L);
+
+        boolean[] added = filmRepository.addLikes(List.of(
+                new FilmLike(1L, 1L),
+                new FilmLike(2L, 1L),
+                new FilmLike(2L, 2L),
+                new FilmLike(2L, 2L)));
+
+        assertThat(added).containsExactly(false, true, true, false);
+        assertThat(filmRepository.getMostPopularFilms(10, null, null))
+                .extracting(Film::getId)
+                .containsExactly(2L, 1L);
+        assertThat(filmRepository.getExistingIds(List.of(1L, 2L, 100L))).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    public void getMostPopularFilmsByGenreAndYearTest() {
+        filmRepository.addLike(1L, 1L);
+        filmRepository.addLike(2L, 1L);
+        filmRepository.addLike(2L, 2L);
+
+        assertThat(filmRepository.getMostPopularFilms(10, 2, null)).extracting(Film::getId).containsExactly(1L);
+        assertThat(filmRepository.getMostPopularFilms(10, 1, null)).extracting(Film::getId).containsExactly(2L);
+        assertThat(filmRepository.getMostPopularFilms(10, null, 1982)).extracting(Film::getId).containsExactly(2L);
+        assertThat(filmRepository.getMostPopularFilms(10, 4, 2001)).extracting(Film::getId).containsExactly(1L);
+        assertThat(filmRepository.getMostPopularFilms(10, 2, 1982)).isEmpty();
+
+        Film film = getTestFilms().getFirst();
+        film.setGenres(new LinkedHashSet<>(List.of(new Genre(1, "Комедия"))));
+        filmRepository.update(film);
+        assertThat(filmRepository.getMostPopularFilms(10, 1, null)).extracting(Film::getId).containsExactly(2L, 1L);
+        assertThat(filmRepository.getMostPopularFilms(10, 2, null)).isEmpty();
+
+        FilmFacets facets = filmRepository.getFacets();
+        assertThat(facets.getGenres())
+                .extracting(FacetCount::getId, FacetCount::getName, FacetCount::getFilmCount, FacetCount::getLikeCount)
+                .containsExactly(tuple(1, "Комедия", 2L, 3L));
+        assertThat(facets.getMpa())
+                .extracting(FacetCount::getId, FacetCount::getName, FacetCount::getFilmCount, FacetCount::getLikeCount)
+                .containsExactly(tuple(1, "G", 1L, 1L), tuple(2, "PG", 1L, 2L));
+        assertThat(facets.getYears())
+                .extracting(FacetCount::getId, FacetCount::getFilmCount, FacetCount::getLikeCount)
+                .containsExactly(tuple(1982, 1L, 2L), tuple(2001, 1L, 1L));
+    }
+
+    @Test
+    public void getTrendingFilmsTest() {
+        filmRepository.addLike(1L, 1L);
+        filmRepository.addLike(2L, 1L);
+        filmRepository.addLike(2L, 2L);
+
+        assertThat(filmRepository.getTrendingFilms(Duration.ofHours(24), 10))
+                .extracting(Film::getId)
+                .containsExactly(2L, 1L);
+        filmRepository.rebuildIndexes();
+        assertThat(filmRepository.getTrendingFilms(Duration.ofHours(1), 10))
+                .extracting(Film::getId)
+                .containsExactly(2L, 1L);
+
+        filmRepository.removeLike(2L, 1L);
+        filmRepository.removeLike(2L, 2L);
+        assertThat(filmRepository.getTrendingFilms(Duration.ofDays(7), 10))
+                .extracting(Film::getId)
+                .containsExactly(1L);
+        filmRepository.removeLike(1L, 1L);
+        assertThat(filmRepository.getTrendingFilms(Duration.ofHours(24), 10)).isEmpty();
+    }
+
+    @Test
+    public void getRecommendationsTest() {
+        filmRepository.addLike(1L, 1L);
+        filmRepository.addLike(1L, 2L);
+        filmRepository.addLike(2L, 2L);
+
+        assertThat(filmRepository.getRecommendations(1L, 10))
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(getTestFilms().getLast()));
+        assertThat(filmRepository.getRecommendations(2L, 10)).isEmpty();
+    }
+
+    @Test
+    public void versionTest() {
+        assertThat(filmRepository.getVersion(1L)).contains(0L);
+        assertThat(filmRepository.getVersion(100L)).isEmpty();
+
+        filmRepository.update(getTestFilms().getFirst());
+        assertThat(filmRepository.getVersion(1L)).contains(1L);
+
+        long empty = filmRepository.getMostPopularFilmsVersion(10, null, null);
+        filmRepository.addLike(1L, 1L);
+        long oneFilm = filmRepository.getMostPopularFilmsVersion(10, null, null);
+        filmRepository.addLike(1L, 2L);
+        assertEquals(oneFilm, filmRepository.getMostPopularFilmsVersion(10, null, null));
+        filmRepository.addLike(2L, 1L);
+        assertNotEquals(oneFilm, filmRepository.getMostPopularFilmsVersion(10, null, null));
+
+        filmRepository.removeLike(1L, 1L);
+        filmRepository.removeLike(1L, 2L);
+        filmRepository.removeLike(2L, 1L);
+        assertEquals(empty, filmRepository.getMostPopularFilmsVersion(10, null, null));
+        assertNotEquals(empty, oneFilm);
+    }
+
+    @Test
+    public void optimisticUpdateTest() {
+        Film film = getTestFilms().getFirst();
+        film.setName("filmUpdated");
+
+        assertThat(filmRepository.update(film, 0L))
+                .isPresent()
+                .get()
+                .usingRecursiveComparison()
+                .isEqualTo(film);
+        assertThat(filmRepository.getVersion(1L)).contains(1L);
+
+        film.setName("lostUpdate");
+        assertThrows(OptimisticLockingFailureException.class, () -> filmRepository.update(film, 0L));
+        assertEquals("filmUpdated", filmRepository.getById(1L).orElseThrow().getName());
+
+        film.setId(100L);
+        assertThat(filmRepository.update(film, 0L)).isEmpty();
+    }
+
+    @Test
+    public void searchTest() {
+        Set<FilmSearchIndex.Field> allFields = EnumSet.allOf(FilmSearchIndex.Field.class);
+
+        assertThat(filmRepository.search("FILM1", allFields, 10))
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(getTestFilms().getFirst()));
+        assertThat(filmRepository.search("desc2", EnumSet.of(FilmSearchIndex.Field.NAME), 10)).isEmpty();
+
+        Film film = getTestFilms().getLast();
+        film.setName("Ёлки");
+        film.setDescription("Новогодняя комедия");
+        filmRepository.update(film);
+        assertThat(filmRepository.search("елки комедия", allFields, 10))
+                .extracting(Film::getId)
+                .containsExactly(2L);
+        assertThat(filmRepository.search("film2", allFields, 10)).isEmpty();
+
+        film.setName("Ёлки 2");
+        filmRepository.update(film);
+        assertThat(filmRepository.search("2", allFields, 10))
+                .extracting(Film::getId)
+                .containsExactly(2L);
+    }
 }
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(StorageTestConfiguration.class)
+public class JdbcIndexCommitTest {
+
+    private final FilmStorage filmRepository;
+    private final UserStorage userRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Test
+    public void indexesFollowOnlyCommittedChangesTest() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            filmRepository.addLike(1L, 1L);
+            filmRepository.addLikes(List.of(new FilmLike(2L, 2L)));
+            Film film = filmRepository.getById(2L).orElseThrow();
+            film.setName("rolled back");
+            filmRepository.update(film);
+            userRepository.addFriend(1L, 2L);
+            userRepository.addFriends(List.of(new Friendship(1L, 3L)));
+
+            assertThat(filmRepository.getMostPopularFilms(10, null, null)).isEmpty();
+            status.setRollbackOnly();
+        });
+
+        assertThat(filmRepository.getMostPopularFilms(10, null, null)).isEmpty();
+        assertThat(filmRepository.search("rolled", EnumSet.allOf(FilmSearchIndex.Field.class), 10)).isEmpty();
+        assertThat(userRepository.getDegree(1L).getFriendCount()).isZero();
+
+        transaction.executeWithoutResult(status -> {
+            filmRepository.addLike(1L, 1L);
+            userRepository.addFriend(1L, 2L);
+        });
+
+        assertThat(filmRepository.getMostPopularFilms(10, null, null)).extracting(Film::getId).containsExactly(1L);
+        assertThat(userRepository.getFriendsByUserId(1L)).extracting(User::getId).containsExactly(2L);
+    }
+}
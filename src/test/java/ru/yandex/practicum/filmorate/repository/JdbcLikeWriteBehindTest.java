@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-interval=1h"})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(StorageTestConfiguration.class)
+public class JdbcLikeWriteBehindTest {
+
+    private final FilmRepository filmRepository;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final NamedParameterJdbcOperations jdbc;
+
+    @Test
+    public void bufferedLikesAreFlushedInOrderTest() {
+        filmRepository.addLike(1L, 1L);
+        filmRepository.addLike(2L, 1L);
+        assertTrue(filmRepository.removeLike(2L, 1L));
+        assertFalse(filmRepository.removeLike(2L, 2L));
+
+        assertEquals(1, likeWriteBuffer.getPendingCount());
+        assertEquals(List.of(), storedLikes());
+        assertEquals(List.of(1L), filmRepository.getMostPopularFilms(10, null, null).stream()
+                .map(Film::getId)
+                .toList());
+
+        likeWriteBuffer.flush();
+        assertEquals(List.of(Map.of("FILM_ID", 1L, "USER_ID", 1L)), storedLikes());
+        assertEquals(Map.of(1L, 1, 2L, 0), likeCounts());
+
+        assertTrue(filmRepository.removeLike(1L, 1L));
+        filmRepository.addLike(1L, 1L);
+        filmRepository.addLike(2L, 2L);
+        likeWriteBuffer.flush();
+        assertEquals(List.of(Map.of("FILM_ID", 1L, "USER_ID", 1L), Map.of("FILM_ID", 2L, "USER_ID", 2L)),
+                storedLikes());
+
+        assertTrue(filmRepository.removeLike(2L, 2L));
+        filmRepository.addLike(2L, 3L);
+        likeWriteBuffer.flush();
+        assertEquals(List.of(Map.of("FILM_ID", 1L, "USER_ID", 1L), Map.of("FILM_ID", 2L, "USER_ID", 3L)),
+                storedLikes());
+        assertEquals(Map.of(1L, 1, 2L, 1), likeCounts());
+        assertEquals(0, likeWriteBuffer.getPendingCount());
+    }
+
+    @Test
+    public void likesKeepTheirRequestTimeTest() throws InterruptedException {
+        long before = System.currentTimeMillis();
+        filmRepository.addLike(2L, 3L);
+        long after = System.currentTimeMillis();
+        Thread.sleep(20);
+        likeWriteBuffer.flush();
+
+        long likedAt = jdbc.getJdbcOperations().queryForObject("select liked_at from films_likes " +
+                "where film_id = 2 and user_id = 3", Timestamp.class).getTime();
+        assertTrue(likedAt >= before && likedAt <= after);
+        assertTrue(trendingFilmIds().contains(2L));
+
+        // an unlike of a buffered like leaves trending at once, one of a flushed like when the flush deletes its row
+        assertTrue(filmRepository.removeLike(2L, 3L));
+        filmRepository.addLike(1L, 3L);
+        assertTrue(trendingFilmIds().contains(1L));
+        assertTrue(filmRepository.removeLike(1L, 3L));
+        assertEquals(List.of(2L), trendingFilmIds());
+        likeWriteBuffer.flush();
+        assertEquals(List.of(), trendingFilmIds());
+    }
+
+    private List<Long> trendingFilmIds() {
+        return filmRepository.getTrendingFilms(Duration.ofHours(1), 10).stream()
+                .map(Film::getId)
+                .toList();
+    }
+
+    private List<Map<String, Object>> storedLikes() {
+        return jdbc.getJdbcOperations().queryForList("select film_id, user_id from films_likes " +
+                "order by film_id, user_id");
+    }
+
+    private Map<Long, Integer> likeCounts() {
+        return Map.of(1L, likeCount(1L), 2L, likeCount(2L));
+    }
+
+    private int likeCount(long filmId) {
+        return jdbc.queryForObject("select like_count from films where id = :id", Map.of("id", filmId),
+                Integer.class);
+    }
+}
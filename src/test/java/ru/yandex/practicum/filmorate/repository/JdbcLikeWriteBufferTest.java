@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.filmorate.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.index.TrendingProperties;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class JdbcLikeWriteBufferTest {
+
+    private static final long EARLIER = Instant.parse("2024-03-01T10:00:00Z").toEpochMilli();
+    private static final long LATER = Instant.parse("2024-03-02T10:00:00Z").toEpochMilli();
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final PlatformTransactionManager transactionManager;
+
+    @Test
+    public void coalescesAndFlushesChangesTest() {
+        LikeWriteBehindProperties properties = new LikeWriteBehindProperties();
+        properties.setEnabled(true);
+        properties.setFlushInterval(Duration.ofHours(1));
+        LikeWriteBuffer buffer = new LikeWriteBuffer(jdbc, transactionManager, properties,
+                new FilmTrendingIndex(new TrendingProperties()));
+
+        buffer.like(1L, 1L, EARLIER);
+        buffer.like(2L, 1L, EARLIER);
+        assertEquals(OptionalLong.of(EARLIER), buffer.unlike(2L, 1L));
+        buffer.like(1L, 2L, EARLIER);
+        buffer.like(2L, 3L, EARLIER);
+        assertEquals(3, buffer.getPendingCount());
+
+        buffer.flush();
+        assertEquals(0, buffer.getPendingCount());
+        assertEquals(List.of(List.of(1L, 1L), List.of(1L, 2L), List.of(2L, 3L)), getLikes());
+        assertEquals(Map.of(1L, 2L, 2L, 1L), getLikeCounts());
+
+        assertEquals(OptionalLong.empty(), buffer.unlike(1L, 1L));
+        assertEquals(OptionalLong.empty(), buffer.unlike(2L, 3L));
+        buffer.like(2L, 3L, LATER);
+        assertEquals(2, buffer.getPendingCount());
+
+        buffer.flush();
+        assertEquals(List.of(List.of(1L, 2L), List.of(2L, 3L)), getLikes());
+        assertEquals(Map.of(1L, 1L, 2L, 1L), getLikeCounts());
+        assertEquals(EARLIER, getLikedAt(1L, 2L));
+        assertEquals(LATER, getLikedAt(2L, 3L));
+    }
+
+    private long getLikedAt(long filmId, long userId) {
+        return jdbc.getJdbcOperations().queryForObject("select liked_at from films_likes " +
+                "where film_id = ? and user_id = ?", Timestamp.class, filmId, userId).getTime();
+    }
+
+    private List<List<Long>> getLikes() {
+        return jdbc.getJdbcOperations().query("select film_id, user_id from films_likes order by film_id, user_id",
+                (rs, rowNum) -> List.of(rs.getLong("film_id"), rs.getLong("user_id")));
+    }
+
+    private Map<Long, Long> getLikeCounts() {
+        return Map.of(1L, getLikeCount(1L), 2L, getLikeCount(2L));
+    }
+
+    private long getLikeCount(long filmId) {
+        return jdbc.getJdbcOperations().queryForObject("select like_count from films where id = ?", Long.class,
+                filmId);
+    }
+}
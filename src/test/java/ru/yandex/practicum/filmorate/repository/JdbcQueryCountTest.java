@@ -0,0 +1,178 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.metrics.JdbcStatementCounter;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.BatchItemStatus;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.UserServiceImpl;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({StorageTestConfiguration.class, FilmServiceImpl.class, UserServiceImpl.class, JdbcStatementCounter.class})
+public class JdbcQueryCountTest {
+
+    private final FilmStorage filmRepository;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final JdbcStatementCounter statementCounter;
+
+    static Film getTestFilm(int i) {
+        return new Film(null,
+                "film" + i,
+                "desc" + i,
+                LocalDate.of(1990, 1, 1),
+                100,
+                new LinkedHashSet<>(List.of(new Genre(1, "Комедия"), new Genre(3, "Мультфильм"))),
+                new Mpa(3, "PG-13"));
+    }
+
+    @Test
+    public void getAllFilmsQueryCountTest() {
+        statementCounter.start();
+        filmRepository.getAll();
+        int queriesForTwoFilms = statementCounter.stop();
+
+        for (int i = 0; i < 20; i++) {
+            filmRepository.save(getTestFilm(i));
+        }
+
+        statementCounter.start();
+        List<Film> filmList = (List<Film>) filmRepository.getAll();
+        int queriesForTwentyTwoFilms = statementCounter.stop();
+
+        assertEquals(22, filmList.size());
+        assertEquals(queriesForTwoFilms, queriesForTwentyTwoFilms);
+        assertEquals(2, queriesForTwentyTwoFilms);
+    }
+
+    @Test
+    public void getMostPopularFilmsQueryCountTest() {
+        filmRepository.addLike(1L, 1L);
+
+        statementCounter.start();
+        List<Film> filmList = filmRepository.getMostPopularFilms(10, null, null);
+        int queriesForOneFilm = statementCounter.stop();
+        assertEquals(1, filmList.size());
+
+        for (long userId = 1; userId <= 3; userId++) {
+            filmRepository.addLike(2L, userId);
+        }
+
+        statementCounter.start();
+        filmList = filmRepository.getMostPopularFilms(10, null, null);
+
+        assertEquals(queriesForOneFilm, statementCounter.stop());
+        assertEquals(2, filmList.size());
+    }
+
+    @Test
+    public void filmEndpointsQueryCountTest() {
+        assertEquals(2, countQueries(() -> filmService.getFilmById(1L)));
+        assertEquals(2, countQueries(() -> filmService.addLike(1L, 1L)));
+        assertEquals(2, countQueries(() -> filmService.getMostPopularFilms(10, null, null)));
+        assertEquals(1, countQueries(() -> filmService.streamFilms(film -> {
+        })));
+        assertEquals(2, countQueries(() -> filmService.removeLike(1L, 1L)));
+        assertEquals(2, countQueries(() -> filmService.createFilm(getTestFilm(1))));
+
+        Film film = getTestFilm(2);
+        film.setId(1L);
+        assertEquals(4, countQueries(() -> filmService.updateFilm(film)));
+        assertEquals(2, countQueries(() -> filmService.updateFilm(film)));
+    }
+
+    @Test
+    public void userEndpointsQueryCountTest() {
+        assertEquals(1, countQueries(() -> userService.getUserById(1L)));
+        assertEquals(1, countQueries(() -> userService.addFriend(1L, 2L)));
+        assertEquals(1, countQueries(() -> userService.getFriendsByUserId(1L)));
+        assertEquals(1, countQueries(() -> userService.addFriend(3L, 2L)));
+        assertEquals(1, countQueries(() -> userService.getMutualFriends(1L, 3L)));
+        assertEquals(1, countQueries(() -> userService.removeFriend(1L, 2L)));
+
+        User user = userService.getUserById(1L);
+        assertEquals(2, countQueries(() -> userService.updateUser(user)));
+    }
+
+    @Test
+    public void missingEntityIsDetectedFromWriteResultTest() {
+        assertThrows(NotFoundException.class, () -> filmService.addLike(1L, 100L));
+        assertThrows(NotFoundException.class, () -> filmService.removeLike(100L, 1L));
+        assertThrows(NotFoundException.class, () -> userService.addFriend(100L, 1L));
+        assertThrows(NotFoundException.class, () -> userService.getFriendsByUserId(100L));
+
+        Film film = getTestFilm(3);
+        film.setId(100L);
+        assertThrows(NotFoundException.class, () -> filmService.updateFilm(film));
+    }
+
+    @Test
+    public void batchEndpointsQueryCountTest() {
+        List<FilmLike> likes = List.of(
+                new FilmLike(1L, 1L),
+                new FilmLike(1L, 1L),
+                new FilmLike(2L, 2L),
+                new FilmLike(100L, 1L),
+                new FilmLike(1L, null));
+
+        statementCounter.start();
+        List<BatchItemResult> likeResults = filmService.addLikes(likes);
+
+        // the missing film fails the first write, then the ids are looked up and the rest is written again
+        assertEquals(5, statementCounter.stop());
+        assertEquals(List.of(BatchItemStatus.CREATED, BatchItemStatus.ALREADY_EXISTS, BatchItemStatus.CREATED,
+                        BatchItemStatus.NOT_FOUND, BatchItemStatus.INVALID),
+                likeResults.stream().map(BatchItemResult::getStatus).toList());
+        assertEquals(2, filmService.getMostPopularFilms(10, null, null).size());
+
+        List<Friendship> friendships = List.of(
+                new Friendship(1L, 2L),
+                new Friendship(2L, 3L),
+                new Friendship(3L, 100L));
+
+        statementCounter.start();
+        List<BatchItemResult> friendResults = userService.addFriends(friendships);
+
+        assertEquals(3, statementCounter.stop());
+        assertEquals(List.of(BatchItemStatus.CREATED, BatchItemStatus.CREATED, BatchItemStatus.NOT_FOUND),
+                friendResults.stream().map(BatchItemResult::getStatus).toList());
+        assertEquals(2, friendResults.get(2).getIndex());
+
+        assertEquals(2, countQueries(() -> filmService.addLikes(List.of(new FilmLike(2L, 1L), new FilmLike(2L, 3L)))));
+        assertEquals(1, countQueries(() -> userService.addFriends(List.of(new Friendship(3L, 1L)))));
+    }
+
+    private int countQueries(Runnable action) {
+        statementCounter.start();
+        action.run();
+        return statementCounter.stop();
+    }
+}
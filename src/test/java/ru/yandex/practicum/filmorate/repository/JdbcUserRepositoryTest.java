@@ -6,20 +6,33 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
-import ru.yandex.practicum.filmorate.mapper.UserRowMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDegree;
+import ru.yandex.practicum.filmorate.model.Versioned;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @JdbcTest
 @AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({UserRepository.class, UserRowMapper.class})
+@Import(StorageTestConfiguration.class)
 public class JdbcUserRepositoryTest {
 
     private final UserStorage userRepository;
@@ -127,4 +140,106 @@ public class JdbcUserRepositoryTest {
                 .usingRecursiveComparison()
                 .isEqualTo(user2);
     }
+
+    @Test
+    public void getPageAndStreamAllTest() {
+        List<User> firstPage = userRepository.getPage(0L, 2);
+        assertEquals(2, firstPage.size());
+        assertThat(firstPage.getFirst())
+                .usingRecursiveComparison()
+                .isEqualTo(getTestUser());
+
+        List<User> secondPage = userRepository.getPage(firstPage.getLast().getId(), 2);
+        assertEquals(1, secondPage.size());
+        assertEquals(3L, secondPage.getFirst().getId());
+
+        List<User> streamedUsers = new ArrayList<>();
+        userRepository.streamAll(streamedUsers::add);
+        assertThat(streamedUsers)
+                .usingRecursiveComparison()
+                .isEqualTo(userRepository.getPage(0L, 100));
+    }
+
+    @Test
+    public void duplicateFriendIsIgnoredTest() {
+        userRepository.addFriend(1L, 2L);
+        userRepository.addFriend(1L, 2L);
+
+        assertEquals(1, userRepository.getFriendsByUserId(1L).size());
+    }
+
+    @Test
+    public void addFriendsTest() {
+        userRepository.addFriend(1L, 2L);
+
+        boolean[] added = userRepository.addFriends(List.of(
+                new Friendship(1L, 2L),
+                new Friendship(1L, 3L),
+                new Friendship(3L, 1L),
+                new Friendship(1L, 3L)));
+
+        assertArrayEquals(new boolean[]{false, true, true, false}, added);
+        assertEquals(2, userRepository.getFriendsByUserId(1L).size());
+        assertEquals(Set.of(1L, 3L), userRepository.getExistingIds(List.of(1L, 3L, 100L)));
+    }
+
+    @Test
+    public void friendSuggestionsAndDegreeTest() {
+        userRepository.addFriend(1L, 2L);
+        userRepository.addFriend(2L, 3L);
+        userRepository.addFriend(2L, 1L);
+
+        List<User> suggestions = userRepository.getFriendSuggestions(1L, 10);
+        assertEquals(1, suggestions.size());
+        assertEquals(3L, suggestions.getFirst().getId());
+
+        UserDegree degree = userRepository.getDegree(2L);
+        assertEquals(2, degree.getFriendCount());
+        assertEquals(1L, degree.getFollowerCount());
+    }
+
+    @Test
+    public void versionTest() {
+        assertThat(userRepository.getVersion(1L)).contains(0L);
+        assertThat(userRepository.getVersion(100L)).isEmpty();
+
+        long noFriends = userRepository.getVersionedFriendsByUserId(1L).getVersion();
+        userRepository.addFriend(1L, 2L);
+        long oneFriend = userRepository.getVersionedFriendsByUserId(1L).getVersion();
+        assertNotEquals(noFriends, oneFriend);
+
+        User friend = userRepository.getById(2L).orElseThrow();
+        friend.setName("renamed");
+        userRepository.update(friend);
+        assertThat(userRepository.getVersion(2L)).contains(1L);
+        Versioned<User> renamed = userRepository.getVersionedById(2L).orElseThrow();
+        assertEquals("renamed", renamed.getValue().getName());
+        assertEquals(1L, renamed.getVersion());
+        Versioned<List<User>> friends = userRepository.getVersionedFriendsByUserId(1L);
+        assertEquals(List.of(renamed.getValue()), friends.getValue());
+        assertNotEquals(oneFriend, friends.getVersion());
+
+        userRepository.removeFriend(1L, 2L);
+        assertEquals(noFriends, userRepository.getVersionedFriendsByUserId(1L).getVersion());
+    }
+
+    @Test
+    public void optimisticUpdateTest() {
+        User user = getTestUser();
+        user.setName("updated");
+
+        assertThat(userRepository.update(user, 0L))
+                .isPresent()
+                .get()
+                .usingRecursiveComparison()
+                .isEqualTo(user);
+        assertThat(userRepository.getVersion(1L)).contains(1L);
+
+        user.setName("lostUpdate");
+        assertThrows(OptimisticLockingFailureException.class, () -> userRepository.update(user, 0L));
+        assertEquals("updated", userRepository.getById(1L).orElseThrow().getName());
+
+        user.setId(100L);
+        assertThat(userRepository.update(user, 0L)).isEmpty();
+    }
 }
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.cache.GenreCache;
+import ru.yandex.practicum.filmorate.cache.MpaCache;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedProperties;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLog;
+import ru.yandex.practicum.filmorate.eventlog.EdgeEventLogProperties;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.TrendingProperties;
+import ru.yandex.practicum.filmorate.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.mapper.MpaRowMapper;
+import ru.yandex.practicum.filmorate.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.memory.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.memory.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.memory.MemoryStorageProperties;
+import ru.yandex.practicum.filmorate.memory.MemoryStore;
+
+/**
+ * Film and user storage with the indexes, logs and reference data it depends on. The storage engine is picked by
+ * {@code filmorate.storage.engine}, as in the application.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+@Import({FilmRepository.class, FilmRowMapper.class, UserRepository.class, UserRowMapper.class,
+        MemoryStore.class, MemoryStorageProperties.class, InMemoryFilmStorage.class, InMemoryUserStorage.class,
+        FilmPopularityIndex.class, LikeMatrix.class, FilmSearchIndex.class, FriendshipIndex.class,
+        FilmTrendingIndex.class, TrendingProperties.class, LikeWriteBuffer.class, LikeWriteBehindProperties.class,
+        EdgeEventLog.class, EdgeEventLogProperties.class, ChangeFeed.class, ChangeFeedProperties.class,
+        MpaRepository.class, MpaRowMapper.class, MpaCache.class,
+        GenreRepository.class, GenreRowMapper.class, GenreCache.class})
+public class StorageTestConfiguration {
+}